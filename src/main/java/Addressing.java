@@ -0,0 +1,37 @@
+import java.net.*;
+import java.util.regex.Pattern;
+
+class Addressing {
+    public static String longToString(long input) {
+        return longToHost(input) + ':' + String.valueOf(longToPort(input));
+    }
+    
+    public static InetSocketAddress longToInetSocketAddress(long input) {
+        return new InetSocketAddress(longToHost(input), longToPort(input));
+    }
+    
+    public static long stringToLong(final String input) {
+        long output = 0;
+        for (String octet : input.substring(0, input.indexOf(':')).split(Pattern.quote("."))) {
+            output = output << 8 | Integer.parseInt(octet);
+        }
+        return output << 16 | Short.parseShort(input.substring(input.indexOf(':') + 1));
+    }
+
+    public static String longToHost(long input) {
+        final StringBuilder builder = new StringBuilder();
+        input >>= 16;
+        for (int index = 0; index < 4; index += 1) {
+            builder.insert(0, input & 0b11111111);
+            if (index != 3) {
+                builder.insert(0, '.');
+                input >>= 8;
+            }
+        }
+        return builder.toString();
+    }
+
+    public static short longToPort(final long input) {
+        return (short) input;
+    }
+}
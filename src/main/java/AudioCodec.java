@@ -0,0 +1,37 @@
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.nio.ByteOrder;
+
+interface AudioCodec {
+    int bitsPerSample();
+    Encoder encoder();
+    Decoder decoder();
+
+    interface Encoder {
+        int encode(final short[] samples, final int offset, final int count, final MutableDirectBuffer buffer, final int index);
+    }
+
+    interface Decoder {
+        int decode(final DirectBuffer buffer, final int offset, final int length, final short[] samples, final int index);
+    }
+}
+
+class PCMCodec implements AudioCodec {
+    @Override public int bitsPerSample() { return 16; }
+
+    @Override public Encoder encoder() {
+        return (final short[] samples, final int offset, final int count, final MutableDirectBuffer buffer, final int index) -> {
+            for (int sample = 0; sample < count; sample += 1) buffer.putShort(index + sample * 2, samples[offset + sample], ByteOrder.BIG_ENDIAN);
+            return count * 2;
+        };
+    }
+
+    @Override public Decoder decoder() {
+        return (final DirectBuffer buffer, final int offset, final int length, final short[] samples, final int index) -> {
+            final int count = length / 2;
+            for (int sample = 0; sample < count; sample += 1) samples[index + sample] = buffer.getShort(offset + sample * 2, ByteOrder.BIG_ENDIAN);
+            return count;
+        };
+    }
+}
@@ -0,0 +1,6 @@
+interface AudioSink {
+    int writable();
+    int buffered();
+    void write(final short[] samples, final int offset, final int count);
+    void close();
+}
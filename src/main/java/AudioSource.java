@@ -0,0 +1,5 @@
+interface AudioSource {
+    int available();
+    void read(final byte[] bytes, final int offset, final int length);
+    void close();
+}
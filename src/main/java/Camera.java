@@ -0,0 +1,64 @@
+import org.openimaj.video.capture.VideoCaptureException;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.function.IntSupplier;
+
+class Camera extends Producer {
+    final Dimension dimension;
+    final FrameMailbox mailbox;
+    final Capturer capturer;
+    final LayeredEncoder encoder;
+    final Histogram histogramCapture;
+    final Histogram histogramQueue = new Histogram();
+    final Histogram histogramEncode = new Histogram();
+    private volatile IntSupplier layersActive = () -> -1;
+    
+    public Camera(final Dimension dimension, final int framesPerSecond, final long addressUDP, final VideoCodec codec) throws VideoCaptureException {
+        this(dimension, framesPerSecond, addressUDP, codec, LayeredEncoder.LAYERS, new WebcamSource(dimension));
+    }
+
+    public Camera(
+        final Dimension dimension, final int framesPerSecond, final long addressUDP, final VideoCodec codec,
+        final LayeredEncoder.Layer[] layers, final VideoSource source
+    ) {
+        super(0);
+        this.dimension = dimension;
+        mailbox = new FrameMailbox((int) dimension.getWidth(), (int) dimension.getHeight());
+        encoder = new LayeredEncoder((int) dimension.getWidth(), (int) dimension.getHeight(), addressUDP, codec, layers);
+        start(Scheduler.SHARED, true);
+        capturer = new Capturer(source, mailbox, framesPerSecond);
+        histogramCapture = capturer.histogramCapture;
+    }
+
+    public long countCaptured() { return mailbox.countPublished(); }
+    public long countDropped() { return mailbox.countDropped(); }
+
+    public void requestKeyframe(final int layer) {
+        encoder.requestKeyframe(layer);
+    }
+
+    public void setLayersActive(final IntSupplier layersActive) {
+        this.layersActive = layersActive;
+    }
+
+    public void setTarget(final long bitsPerSecond) {
+        encoder.setTarget(bitsPerSecond);
+    }
+
+    @Override protected int produce() {
+        final BufferedImage bufferedImage = mailbox.take();
+        if (bufferedImage == null) return 0;
+        final long time = mailbox.time();
+        final long timeStart = System.nanoTime();
+        histogramQueue.record(timeStart - time);
+        final int work = encoder.encode(bufferedImage, time, buffer, layersActive.getAsInt());
+        histogramEncode.record(System.nanoTime() - timeStart);
+        return 1 + work;
+    }
+
+    @Override protected void stop() {
+        capturer.stop();
+        super.stop();
+    }
+}
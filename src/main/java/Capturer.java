@@ -0,0 +1,29 @@
+import java.util.concurrent.TimeUnit;
+
+class Capturer extends Daemon {
+    private final VideoSource source;
+    private final FrameMailbox mailbox;
+    private long timeCapture = 0;
+    final Histogram histogramCapture = new Histogram();
+    final Histogram histogramInterval = new Histogram();
+
+    public Capturer(final VideoSource source, final FrameMailbox mailbox, final int framesPerSecond) {
+        super(1_000_000_000L / framesPerSecond, TimeUnit.NANOSECONDS);
+        this.source = source;
+        this.mailbox = mailbox;
+        start(Scheduler.SHARED, true);
+    }
+
+    @Override protected int run() {
+        final long time = System.nanoTime();
+        if (timeCapture != 0) histogramInterval.record(time - timeCapture);
+        timeCapture = time;
+        mailbox.publish(source.next(), time);
+        histogramCapture.record(System.nanoTime() - time);
+        return 1;
+    }
+
+    @Override public void onClose() {
+        source.close();
+    }
+}
@@ -0,0 +1,87 @@
+class ClockEstimator {
+    private static final int SIZE_WINDOW = 32;
+    private static final int COUNT_DRIFT_MINIMUM = 4;
+    private static final long NANOS_SPAN_DRIFT = 4_000_000_000L;
+    private static final long NANOS_RTT_SLACK = 200_000L;
+    private static final double DRIFT_MAXIMUM = 500e-6;
+
+    private final long[] offsets = new long[SIZE_WINDOW];
+    private final long[] rtts = new long[SIZE_WINDOW];
+    private final long[] times = new long[SIZE_WINDOW];
+    private int count = 0;
+    private int index = 0;
+    private volatile Estimate estimate = new Estimate(0, 0, 0, 0, 0);
+
+    public synchronized void sample(final long timeRequest, final long timeReceived, final long timeReplied, final long timeResponse) {
+        final long rtt = (timeResponse - timeRequest) - (timeReplied - timeReceived);
+        if (rtt < 0) return;
+        offsets[index] = ((timeReceived - timeRequest) + (timeReplied - timeResponse)) / 2;
+        rtts[index] = rtt;
+        times[index] = timeResponse;
+        index = (index + 1) % SIZE_WINDOW;
+        count = Math.min(count + 1, SIZE_WINDOW);
+
+        int best = 0;
+        for (int candidate = 1; candidate < count; candidate += 1) if (rtts[candidate] < rtts[best]) best = candidate;
+        final double drift = drift(offsets[best], times[best], rtts[best] * 3 / 2 + NANOS_RTT_SLACK);
+        estimate = new Estimate(count, offsets[best], rtts[best], times[best], drift);
+    }
+
+    private double drift(final long offset, final long timeReference, final long rttLimit) {
+        int n = 0;
+        double sumTime = 0, sumOffset = 0, timeMinimum = Double.MAX_VALUE, timeMaximum = -Double.MAX_VALUE;
+        for (int candidate = 0; candidate < count; candidate += 1) {
+            if (rtts[candidate] > rttLimit) continue;
+            final double time = times[candidate] - timeReference;
+            n += 1;
+            sumTime += time;
+            sumOffset += offsets[candidate] - offset;
+            timeMinimum = Math.min(timeMinimum, time);
+            timeMaximum = Math.max(timeMaximum, time);
+        }
+        if (n < COUNT_DRIFT_MINIMUM || timeMaximum - timeMinimum < NANOS_SPAN_DRIFT) return 0;
+        final double meanTime = sumTime / n;
+        final double meanOffset = sumOffset / n;
+        double covariance = 0, variance = 0;
+        for (int candidate = 0; candidate < count; candidate += 1) {
+            if (rtts[candidate] > rttLimit) continue;
+            final double time = times[candidate] - timeReference - meanTime;
+            covariance += time * (offsets[candidate] - offset - meanOffset);
+            variance += time * time;
+        }
+        return Math.max(-DRIFT_MAXIMUM, Math.min(DRIFT_MAXIMUM, covariance / variance));
+    }
+
+    public boolean synchronised() { return estimate.count > 0; }
+    public int count() { return estimate.count; }
+    public long rtt() { return estimate.rtt; }
+    public double drift() { return estimate.drift; }
+
+    public long offset(final long timeLocal) {
+        final Estimate estimate = this.estimate;
+        return estimate.offset + (long) (estimate.drift * (timeLocal - estimate.timeReference));
+    }
+
+    public long toLocal(final long timeRemote) {
+        final Estimate estimate = this.estimate;
+        if (estimate.count == 0) return RemoteClock.UNKNOWN;
+        final long timeLocal = timeRemote - estimate.offset;
+        return timeLocal - (long) (estimate.drift * (timeLocal - estimate.timeReference));
+    }
+
+    private static class Estimate {
+        final int count;
+        final long offset;
+        final long rtt;
+        final long timeReference;
+        final double drift;
+
+        Estimate(final int count, final long offset, final long rtt, final long timeReference, final double drift) {
+            this.count = count;
+            this.offset = offset;
+            this.rtt = rtt;
+            this.timeReference = timeReference;
+            this.drift = drift;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import org.agrona.collections.Long2ObjectHashMap;
+
+class ClockSynchronizer extends Consumer implements RemoteClock {
+    public static final int OFFSET_ADDRESS_TARGET = Packet.SIZE_HEADER;
+    public static final int OFFSET_TIME_REQUEST = Packet.SIZE_HEADER + 8;
+    public static final int OFFSET_TIME_RECEIVED = Packet.SIZE_HEADER + 16;
+    public static final int OFFSET_TIME_REPLIED = Packet.SIZE_HEADER + 24;
+    public static final int OFFSET_KIND = Packet.SIZE_HEADER + 32;
+    public static final int SIZE_PROBE = 33;
+    public static final byte KIND_REQUEST = 0;
+    public static final byte KIND_RESPONSE = 1;
+
+    private static final int COUNT_PROBES_FAST = 8;
+    private static final long NANOS_PROBE_FAST = 100_000_000L;
+    private static final long NANOS_PROBE = 1_000_000_000L;
+    private static final long NANOS_STALE = 5_000_000_000L;
+
+    private final long addressUDP;
+    private final Sender sender;
+    private final Long2ObjectHashMap<Peer> addressUDPToPeer = new Long2ObjectHashMap<>();
+    private volatile Long2ObjectHashMap<ClockEstimator> addressUDPToEstimator = new Long2ObjectHashMap<>();
+    private final Packet probe = new Packet();
+    private final Packet response = new Packet();
+
+    public ClockSynchronizer(final long addressUDP, final Sender sender) {
+        super(0, (byte) (Packet.TYPE_AUDIO | Packet.TYPE_VIDEO));
+        this.addressUDP = addressUDP;
+        this.sender = sender;
+        probe.wrap(new byte[Packet.SIZE_HEADER + SIZE_PROBE]);
+        probe.setType(Packet.TYPE_CLOCK).setLength(SIZE_PROBE).setAddressUDP(addressUDP);
+        response.wrap(new byte[Packet.SIZE_HEADER + SIZE_PROBE]);
+        response.setType(Packet.TYPE_CLOCK).setLength(SIZE_PROBE).setAddressUDP(addressUDP);
+        start();
+    }
+
+    public ClockEstimator estimator(final long addressUDP) {
+        return addressUDPToEstimator.get(addressUDP);
+    }
+
+    @Override public long toLocal(final long addressUDP, final long time) {
+        if (addressUDP == this.addressUDP) return time;
+        final ClockEstimator estimator = addressUDPToEstimator.get(addressUDP);
+        return estimator == null ? UNKNOWN : estimator.toLocal(time);
+    }
+
+    @Override protected void consume(final Packet packet) {
+        final long addressUDPSender = packet.addressUDP();
+        if (addressUDPSender == addressUDP) return;
+        Peer peer = addressUDPToPeer.get(addressUDPSender);
+        if (peer == null) {
+            peer = new Peer();
+            addressUDPToPeer.put(addressUDPSender, peer);
+            publish();
+        }
+        peer.timeSeen = System.nanoTime();
+    }
+
+    private void publish() {
+        final Long2ObjectHashMap<ClockEstimator> addressUDPToEstimator = new Long2ObjectHashMap<>();
+        final Long2ObjectHashMap<Peer>.EntryIterator iterator = addressUDPToPeer.entrySet().iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            addressUDPToEstimator.put(iterator.getLongKey(), iterator.getValue().estimator);
+        }
+        this.addressUDPToEstimator = addressUDPToEstimator;
+    }
+
+    @Override protected int run() {
+        int work = super.run();
+        final long now = System.nanoTime();
+        final Long2ObjectHashMap<Peer>.EntryIterator iterator = addressUDPToPeer.entrySet().iterator();
+        boolean removed = false;
+        while (iterator.hasNext()) {
+            iterator.next();
+            final Peer peer = iterator.getValue();
+            if (now - peer.timeSeen > NANOS_STALE) {
+                iterator.remove();
+                removed = true;
+                continue;
+            }
+            if (now - peer.timeProbe < (peer.estimator.count() < COUNT_PROBES_FAST ? NANOS_PROBE_FAST : NANOS_PROBE)) continue;
+            peer.timeProbe = now;
+            probe.putLong(OFFSET_ADDRESS_TARGET, iterator.getLongKey());
+            probe.putLong(OFFSET_TIME_REQUEST, System.nanoTime());
+            probe.putByte(OFFSET_KIND, KIND_REQUEST);
+            sender.send(iterator.getLongKey(), probe);
+            work += 1;
+        }
+        if (removed) publish();
+        return work;
+    }
+
+    public void handle(final Packet packet) {
+        final long timeReceived = System.nanoTime();
+        if (packet.getByte(OFFSET_KIND) == KIND_REQUEST) {
+            synchronized (response) {
+                response.putLong(OFFSET_ADDRESS_TARGET, packet.addressUDP());
+                response.putLong(OFFSET_TIME_REQUEST, packet.getLong(OFFSET_TIME_REQUEST));
+                response.putLong(OFFSET_TIME_RECEIVED, timeReceived);
+                response.putByte(OFFSET_KIND, KIND_RESPONSE);
+                response.putLong(OFFSET_TIME_REPLIED, System.nanoTime());
+                sender.send(packet.addressUDP(), response);
+            }
+            return;
+        }
+        final ClockEstimator estimator = estimator(packet.addressUDP());
+        if (estimator == null) return;
+        estimator.sample(packet.getLong(OFFSET_TIME_REQUEST), packet.getLong(OFFSET_TIME_RECEIVED), packet.getLong(OFFSET_TIME_REPLIED), timeReceived);
+    }
+
+    public interface Sender { void send(final long addressUDP, final Packet packet); }
+
+    private static class Peer {
+        final ClockEstimator estimator = new ClockEstimator();
+        long timeSeen;
+        long timeProbe = 0;
+    }
+}
@@ -0,0 +1,199 @@
+import org.agrona.collections.Long2LongHashMap;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+class Compositor extends Daemon {
+    private static final int FRAMES_PER_SECOND_DEFAULT = 60;
+    private static final long NANOS_TOMBSTONE = 1_000_000_000L;
+
+    private final Dimension dimension;
+    private final boolean headless;
+    private final JFrame jFrame;
+    private final Canvas canvas;
+    private BufferStrategy bufferStrategy;
+    private BufferedImage backBuffer;
+    private volatile Tile[] tiles = new Tile[0];
+    private final Long2LongHashMap addressToTimeRemoved = new Long2LongHashMap(Long.MIN_VALUE);
+    private volatile boolean layoutChanged = true;
+    private int columns = 1;
+    private long timePresent = 0;
+    private volatile long countPresented = 0;
+    private volatile long countSkipped = 0;
+    final Histogram histogramComposite = new Histogram();
+    final Histogram histogramInterval = new Histogram();
+
+    public Compositor(final Dimension dimension, final String title, final boolean headless) {
+        this(dimension, title, headless, framesPerSecondDisplay(headless));
+    }
+
+    public Compositor(final Dimension dimension, final String title, final boolean headless, final int framesPerSecond) {
+        super(1_000 / framesPerSecond);
+        this.dimension = dimension;
+        this.headless = headless;
+        if (headless) {
+            jFrame = null;
+            canvas = null;
+        } else {
+            jFrame = new JFrame(title);
+            canvas = new Canvas();
+            canvas.setIgnoreRepaint(true);
+            canvas.setPreferredSize(dimension);
+            jFrame.setIgnoreRepaint(true);
+            jFrame.add(canvas);
+            jFrame.pack();
+            jFrame.setVisible(true);
+            canvas.createBufferStrategy(2);
+            bufferStrategy = canvas.getBufferStrategy();
+        }
+        start(Scheduler.SHARED, !headless);
+    }
+
+    private static int framesPerSecondDisplay(final boolean headless) {
+        if (headless) return FRAMES_PER_SECOND_DEFAULT;
+        final int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? FRAMES_PER_SECOND_DEFAULT : refreshRate;
+    }
+
+    public long countPresented() { return countPresented; }
+    public long countSkipped() { return countSkipped; }
+    public BufferedImage backBuffer() { return backBuffer; }
+
+    public void submit(final long address, final BufferedImage image) {
+        Tile tile = tile(address);
+        if (tile == null) tile = add(address);
+        if (tile == null) return;
+        synchronized (tile) {
+            if (tile.removed) return;
+            if (tile.version != tile.versionDrawn) countSkipped += 1;
+            tile.graphics.drawImage(image, 0, 0, tile.image.getWidth(), tile.image.getHeight(), null);
+            tile.version += 1;
+        }
+    }
+
+    public synchronized void remove(final long address) {
+        addressToTimeRemoved.put(address, System.nanoTime());
+        final Tile[] tiles = new Tile[this.tiles.length];
+        int length = 0;
+        for (final Tile tile : this.tiles) {
+            if (tile.address != address) {
+                tiles[length++] = tile;
+                continue;
+            }
+            synchronized (tile) {
+                tile.removed = true;
+                tile.graphics.dispose();
+            }
+        }
+        if (length == tiles.length) return;
+        this.tiles = Arrays.copyOf(tiles, length);
+        layoutChanged = true;
+    }
+
+    private Tile tile(final long address) {
+        for (final Tile tile : tiles) if (tile.address == address) return tile;
+        return null;
+    }
+
+    private synchronized Tile add(final long address) {
+        final Tile existing = tile(address);
+        if (existing != null) return existing;
+        final long timeRemoved = addressToTimeRemoved.get(address);
+        if (timeRemoved != Long.MIN_VALUE) {
+            if (System.nanoTime() - timeRemoved < NANOS_TOMBSTONE) return null;
+            addressToTimeRemoved.remove(address);
+        }
+        final Tile tile = new Tile(address, new BufferedImage((int) dimension.getWidth(), (int) dimension.getHeight(), BufferedImage.TYPE_INT_RGB));
+        final Tile[] tiles = Arrays.copyOf(this.tiles, this.tiles.length + 1);
+        tiles[tiles.length - 1] = tile;
+        this.tiles = tiles;
+        layoutChanged = true;
+        return tile;
+    }
+
+    @Override protected int run() {
+        final Tile[] tiles = this.tiles;
+        final boolean layout = layoutChanged;
+        boolean changed = layout;
+        for (final Tile tile : tiles) changed |= tile.version != tile.versionDrawn;
+        if (!changed) return 0;
+
+        final long start = System.nanoTime();
+        if (layout) {
+            layoutChanged = false;
+            layout(Math.max(1, tiles.length));
+        }
+        if (headless) {
+            final Graphics2D graphics = backBuffer.createGraphics();
+            draw(graphics, tiles, layout);
+            graphics.dispose();
+        } else {
+            do {
+                do {
+                    final Graphics graphics = bufferStrategy.getDrawGraphics();
+                    draw(graphics, tiles, true);
+                    graphics.dispose();
+                } while (bufferStrategy.contentsRestored());
+                bufferStrategy.show();
+            } while (bufferStrategy.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+        }
+        final long end = System.nanoTime();
+        histogramComposite.record(end - start);
+        if (timePresent != 0) histogramInterval.record(end - timePresent);
+        timePresent = end;
+        countPresented += 1;
+        return 1;
+    }
+
+    private void layout(final int count) {
+        columns = (int) Math.ceil(Math.sqrt(count));
+        final int rows = (count + columns - 1) / columns;
+        final Dimension size = new Dimension((int) dimension.getWidth() * columns, (int) dimension.getHeight() * rows);
+        if (headless) {
+            backBuffer = new BufferedImage((int) size.getWidth(), (int) size.getHeight(), BufferedImage.TYPE_INT_RGB);
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            canvas.setPreferredSize(size);
+            jFrame.pack();
+        });
+    }
+
+    private void draw(final Graphics graphics, final Tile[] tiles, final boolean clear) {
+        if (clear) {
+            graphics.setColor(Color.BLACK);
+            graphics.fillRect(0, 0, (int) dimension.getWidth() * columns, (int) dimension.getHeight() * ((tiles.length + columns - 1) / columns));
+        }
+        for (int index = 0; index < tiles.length; index += 1) {
+            final Tile tile = tiles[index];
+            synchronized (tile) {
+                graphics.drawImage(tile.image, (index % columns) * (int) dimension.getWidth(), (index / columns) * (int) dimension.getHeight(), null);
+                tile.versionDrawn = tile.version;
+            }
+        }
+    }
+
+    @Override public void onClose() {
+        for (final Tile tile : tiles) tile.graphics.dispose();
+        if (jFrame != null) SwingUtilities.invokeLater(jFrame::dispose);
+    }
+
+    private static class Tile {
+        final long address;
+        final BufferedImage image;
+        final Graphics2D graphics;
+        volatile long version = 0;
+        volatile long versionDrawn = 0;
+        boolean removed = false;
+
+        Tile(final long address, final BufferedImage image) {
+            this.address = address;
+            this.image = image;
+            graphics = image.createGraphics();
+        }
+    }
+}
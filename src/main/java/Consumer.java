@@ -0,0 +1,63 @@
+import java.util.Arrays;
+
+abstract class Consumer extends Daemon {
+    private static final int SIZE_BATCH = 16;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private volatile Tuple<RingBuffer<Packet>, Integer>[] tuplesBufferTicket = new Tuple[0];
+    private final byte mask;
+
+    Consumer(final int delay, final byte mask) {
+        super(delay);
+        this.mask = mask;
+    }
+
+    public void subscribe(final Producer producer) {
+        subscribe(producer.buffer);
+    }
+    
+    public synchronized void subscribe(final RingBuffer<Packet> buffer) {
+        final Tuple<RingBuffer<Packet>, Integer>[] tuples = Arrays.copyOf(tuplesBufferTicket, tuplesBufferTicket.length + 1);
+        tuples[tuples.length - 1] = new Tuple<>(buffer, buffer.subscribe());
+        tuplesBufferTicket = tuples;
+    }
+    
+    @Override protected void stop() {
+        super.stop();
+        synchronized (this) {
+            for (final Tuple<RingBuffer<Packet>, Integer> tuple : tuplesBufferTicket) tuple.first.unsubscribe(tuple.second);
+            tuplesBufferTicket = Arrays.copyOf(tuplesBufferTicket, 0);
+        }
+    }
+
+    public long lag() {
+        long lag = 0;
+        for (final Tuple<RingBuffer<Packet>, Integer> tuple : tuplesBufferTicket) lag = Math.max(lag, tuple.first.lag(tuple.second));
+        return lag;
+    }
+
+    @Override protected int run() {
+        int work = 0;
+        for (final Tuple<RingBuffer<Packet>, Integer> tuple : tuplesBufferTicket) {
+            final RingBuffer<Packet> buffer = tuple.first;
+            final int ticket = tuple.second;
+            final int count = buffer.acquire(ticket, SIZE_BATCH);
+            int index = 0;
+            try {
+                while (index < count && !stalled()) {
+                    final Packet packet = buffer.get(ticket, index);
+                    index += 1;
+                    if ((packet.type() & mask) != 0) consume(packet);
+                }
+            } finally {
+                if (index > 0) buffer.release(ticket, index);
+            }
+            work += index;
+        }
+        return work;
+    }
+
+    protected boolean stalled() { return false; }
+
+    protected abstract void consume(final Packet packet);
+}
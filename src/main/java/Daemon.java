@@ -0,0 +1,45 @@
+import org.agrona.concurrent.Agent;
+
+import java.util.concurrent.TimeUnit;
+
+abstract class Daemon implements Agent {
+    private final long nanosPeriod;
+    private long deadline = 0;
+    private Scheduler scheduler;
+    
+    Daemon(final int delay) {
+        this(delay, TimeUnit.MILLISECONDS);
+    }
+
+    Daemon(final long period, final TimeUnit unit) {
+        nanosPeriod = unit.toNanos(period);
+    }
+
+    protected void start() {
+        start(Scheduler.SHARED, false);
+    }
+
+    protected synchronized void start(final Scheduler scheduler, final boolean dedicated) {
+        if (this.scheduler != null) return;
+        this.scheduler = scheduler;
+        scheduler.add(this, dedicated);
+    }
+
+    protected synchronized void stop() {
+        if (scheduler == null) return;
+        scheduler.remove(this);
+        scheduler = null;
+    }
+    
+    @Override public int doWork() {
+        if (nanosPeriod == 0) return run();
+        final long now = System.nanoTime();
+        if (now - deadline < 0) return 0;
+        deadline = now - deadline > nanosPeriod ? now + nanosPeriod : deadline + nanosPeriod;
+        return 1 + run();
+    }
+    
+    @Override public String roleName() { return getClass().getName(); }
+    
+    abstract protected int run();
+}
@@ -0,0 +1,214 @@
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+class DecodePool {
+    private static final int SIZE_PENDING = 64;
+    private static final long NANOS_REQUEST = 250_000_000L;
+    private static final long NANOS_LAYER_STALE = 500_000_000L;
+    
+    private final VideoCodec codec;
+    private final Schedule schedule;
+    private final Listener listener;
+    private final Requester requester;
+    private final String name;
+    private final Worker[] workers;
+    private final Long2ObjectHashMap<Stream[]> addressUDPToStreams = new Long2ObjectHashMap<>();
+    final Histogram histogramDecode = new Histogram();
+    
+    public DecodePool(
+        final VideoCodec codec, final int countWorkers, final Schedule schedule, final Listener listener, final Requester requester, final String name
+    ) {
+        this.codec = codec;
+        this.schedule = schedule;
+        this.listener = listener;
+        this.requester = requester;
+        this.name = name;
+        workers = new Worker[countWorkers];
+        for (int index = 0; index < countWorkers; index += 1) workers[index] = new Worker();
+    }
+    
+    public void submit(final Packet packet) {
+        final long address = packet.addressUDP();
+        final int layer = packet.layer();
+        if (layer < 0 || layer >= UDP.COUNT_LAYERS) return;
+        final Stream stream = stream(address, layer);
+        final boolean keyframe = (packet.flags() & Packet.FLAG_KEYFRAME) != 0;
+        if (stream.keyframeNeeded && !keyframe) {
+            drop(stream);
+            return;
+        }
+        final Frame frame = stream.frames.tryClaim();
+        if (frame == null) {
+            drop(stream);
+            return;
+        }
+        stream.keyframeNeeded = false;
+        frame.length = packet.length();
+        frame.time = packet.time();
+        frame.keyframe = keyframe;
+        frame.bytes.putBytes(0, packet, Packet.SIZE_HEADER, frame.length);
+        stream.frames.commit();
+    }
+    
+    private Stream stream(final long address, final int layer) {
+        synchronized (addressUDPToStreams) {
+            Stream[] streams = addressUDPToStreams.get(address);
+            if (streams == null) {
+                streams = new Stream[UDP.COUNT_LAYERS];
+                addressUDPToStreams.put(address, streams);
+            }
+            if (streams[layer] != null) return streams[layer];
+            final Stream stream = new Stream(address, layer, codec.decoder(), streams);
+            streams[layer] = stream;
+            Metrics.SHARED.gauge(label(stream, "dropped"), () -> stream.dropped);
+            Metrics.SHARED.gauge(label(stream, "superseded"), () -> stream.superseded);
+            Metrics.SHARED.gauge(label(stream, "coalesced"), () -> stream.coalesced);
+            workers[(Long.hashCode(address) & Integer.MAX_VALUE) % workers.length].add(stream);
+            return stream;
+        }
+    }
+    
+    private String label(final Stream stream, final String counter) {
+        return name + " " + Addressing.longToPort(stream.addressUDP) + " layer" + stream.layer + " " + counter;
+    }
+    
+    private void drop(final Stream stream) {
+        stream.dropped += 1;
+        stream.keyframeNeeded = true;
+        final long now = System.nanoTime();
+        if (now - stream.timeRequested < NANOS_REQUEST) return;
+        stream.timeRequested = now;
+        requester.requestKeyframe(stream.addressUDP, stream.layer);
+    }
+    
+    public void remove(final long addressUDP) {
+        final Stream[] streams;
+        synchronized (addressUDPToStreams) { streams = addressUDPToStreams.remove(addressUDP); }
+        if (streams == null) return;
+        for (final Stream stream : streams) {
+            if (stream == null) continue;
+            for (final Worker worker : workers) worker.remove(stream);
+            Metrics.SHARED.remove(label(stream, "dropped"));
+            Metrics.SHARED.remove(label(stream, "superseded"));
+            Metrics.SHARED.remove(label(stream, "coalesced"));
+        }
+    }
+    
+    public long[] addresses() {
+        synchronized (addressUDPToStreams) {
+            final long[] addresses = new long[addressUDPToStreams.size()];
+            int index = 0;
+            for (final Long2ObjectHashMap<Stream[]>.KeyIterator iterator = addressUDPToStreams.keySet().iterator(); iterator.hasNext(); ) {
+                addresses[index++] = iterator.nextLong();
+            }
+            return addresses;
+        }
+    }
+    
+    public void stop() {
+        for (final Worker worker : workers) worker.stop();
+        for (final long addressUDP : addresses()) remove(addressUDP);
+    }
+    
+    public interface Schedule { boolean due(final long addressUDP, final long time); }
+    public interface Listener { void decoded(final long addressUDP, final BufferedImage bufferedImage, final long time); }
+    public interface Requester { void requestKeyframe(final long addressUDP, final int layer); }
+    
+    private static class Frame {
+        final ExpandableDirectByteBuffer bytes = new ExpandableDirectByteBuffer(1 << 12);
+        int length;
+        long time;
+        boolean keyframe;
+    }
+    
+    private static class Stream {
+        final long addressUDP;
+        final int layer;
+        final VideoCodec.Decoder decoder;
+        final Stream[] siblings;
+        final RingBuffer<Frame> frames = new RingBuffer<>(Frame::new, SIZE_PENDING);
+        final int ticket = frames.subscribe();
+        volatile long dropped = 0;
+        volatile long superseded = 0;
+        volatile long coalesced = 0;
+        boolean keyframeNeeded = false;
+        long timeRequested = Long.MIN_VALUE / 2;
+        volatile long timeDecoded = Long.MIN_VALUE / 2;
+        
+        Stream(final long addressUDP, final int layer, final VideoCodec.Decoder decoder, final Stream[] siblings) {
+            this.addressUDP = addressUDP;
+            this.layer = layer;
+            this.decoder = decoder;
+            this.siblings = siblings;
+        }
+        
+        boolean superseded(final long now) {
+            for (int layer = this.layer + 1; layer < siblings.length; layer += 1) {
+                final Stream sibling = siblings[layer];
+                if (sibling != null && now - sibling.timeDecoded < NANOS_LAYER_STALE) return true;
+            }
+            return false;
+        }
+    }
+    
+    private class Worker extends Daemon {
+        private volatile Stream[] streams = new Stream[0];
+        
+        Worker() {
+            super(0);
+            start();
+        }
+        
+        synchronized void add(final Stream stream) {
+            final Stream[] streams = Arrays.copyOf(this.streams, this.streams.length + 1);
+            streams[streams.length - 1] = stream;
+            this.streams = streams;
+        }
+        
+        synchronized void remove(final Stream stream) {
+            final Stream[] streams = new Stream[this.streams.length];
+            int length = 0;
+            for (final Stream candidate : this.streams) if (candidate != stream) streams[length++] = candidate;
+            this.streams = Arrays.copyOf(streams, length);
+        }
+        
+        @Override protected int run() {
+            int work = 0;
+            for (final Stream stream : streams) {
+                final int available = stream.frames.acquire(stream.ticket, SIZE_PENDING);
+                int count = 0;
+                while (count < available && schedule.due(stream.addressUDP, stream.frames.get(stream.ticket, count).time)) count += 1;
+                if (count == 0) continue;
+                work += count;
+                
+                int first = 0;
+                for (int index = count - 1; index > 0; index -= 1) {
+                    if (stream.frames.get(stream.ticket, index).keyframe) { first = index; break; }
+                }
+                BufferedImage bufferedImage = null;
+                long time = 0;
+                try {
+                    for (int index = first; index < count; index += 1) {
+                        final Frame frame = stream.frames.get(stream.ticket, index);
+                        final long timeStart = System.nanoTime();
+                        bufferedImage = stream.decoder.decode(frame.bytes, 0, frame.length);
+                        histogramDecode.record(System.nanoTime() - timeStart);
+                        time = frame.time;
+                    }
+                } finally {
+                    stream.superseded += first;
+                    stream.coalesced += count - first - 1;
+                    stream.frames.release(stream.ticket, count);
+                }
+                if (bufferedImage == null) continue;
+                final long now = System.nanoTime();
+                stream.timeDecoded = now;
+                if (!stream.superseded(now)) listener.decoded(stream.addressUDP, bufferedImage, time);
+            }
+            return work;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+class DelayEstimator {
+    public static final byte SIGNAL_UNDERUSE = -1;
+    public static final byte SIGNAL_NORMAL = 0;
+    public static final byte SIGNAL_OVERUSE = 1;
+
+    private static final int SIZE_WINDOW = 20;
+    private static final int COUNT_DELTAS_MAXIMUM = 60;
+    private static final int COUNT_OVERUSE = 2;
+    private static final double SMOOTHING = 0.9;
+    private static final double GAIN_TREND = 4.0;
+    private static final double THRESHOLD_INITIAL = 12.5;
+    private static final double THRESHOLD_MINIMUM = 6.0;
+    private static final double THRESHOLD_MAXIMUM = 600.0;
+    private static final double K_UP = 0.0087;
+    private static final double K_DOWN = 0.039;
+
+    private final int streamsTrend;
+    private final boolean[] started;
+    private final int[] sequenceBase;
+    private final int[] sequenceHighest;
+    private final long[] countReceived;
+    private final double[] windowTime = new double[SIZE_WINDOW];
+    private final double[] windowDelay = new double[SIZE_WINDOW];
+    private int windowCount = 0;
+    private int windowIndex = 0;
+    private int countDeltas = 0;
+
+    private boolean grouping = false;
+    private boolean groupPrevious = false;
+    private long groupTimeSent;
+    private long groupTimeArrival;
+    private long groupTimeSentPrevious;
+    private long groupTimeArrivalPrevious;
+    private long groupBytes;
+    private long groupBytesPrevious;
+    private long timeArrivalFirst;
+    private double timeUpdateLast = 0;
+
+    private double delayAccumulated = 0;
+    private double delaySmoothed = 0;
+    private double trend = 0;
+    private double threshold = THRESHOLD_INITIAL;
+    private int countOverusing = 0;
+    private byte signal = SIGNAL_NORMAL;
+
+    private long bytesReceived = 0;
+    private long bitrateReceived = 0;
+    private long timeArrivalLast = 0;
+    private long timeReport = 0;
+
+    public DelayEstimator(final int streams, final int streamsTrend) {
+        this.streamsTrend = streamsTrend;
+        started = new boolean[streams];
+        sequenceBase = new int[streams];
+        sequenceHighest = new int[streams];
+        countReceived = new long[streams];
+    }
+
+    public void receive(final int stream, final int sequence, final long timeSent, final long timeArrival, final int bytes) {
+        if (!started[stream]) {
+            started[stream] = true;
+            sequenceBase[stream] = sequence;
+            sequenceHighest[stream] = sequence;
+        } else if (sequence - sequenceHighest[stream] > 0) {
+            sequenceHighest[stream] = sequence;
+        }
+        countReceived[stream] += 1;
+        bytesReceived += bytes;
+        timeArrivalLast = timeArrival;
+        if (timeReport == 0) timeReport = timeArrival;
+        if ((streamsTrend & (1 << stream)) == 0) return;
+
+        if (!grouping) {
+            grouping = true;
+            timeArrivalFirst = timeArrival;
+            groupTimeSent = timeSent;
+            groupTimeArrival = timeArrival;
+            groupBytes = bytes;
+            return;
+        }
+        if (timeSent == groupTimeSent) {
+            groupTimeArrival = Math.max(groupTimeArrival, timeArrival);
+            groupBytes += bytes;
+            return;
+        }
+        if (timeSent - groupTimeSent < 0) return;
+        if (groupPrevious) {
+            final double transmission = bitrateReceived > 0 ? (groupBytes - groupBytesPrevious) * 8 * 1e3 / bitrateReceived : 0;
+            final double delta = ((groupTimeArrival - groupTimeArrivalPrevious) - (groupTimeSent - groupTimeSentPrevious)) / 1e6 - transmission;
+            update(delta, (groupTimeArrival - timeArrivalFirst) / 1e6);
+        }
+        groupPrevious = true;
+        groupTimeSentPrevious = groupTimeSent;
+        groupTimeArrivalPrevious = groupTimeArrival;
+        groupBytesPrevious = groupBytes;
+        groupTimeSent = timeSent;
+        groupTimeArrival = timeArrival;
+        groupBytes = bytes;
+    }
+
+    private void update(final double delta, final double time) {
+        countDeltas = Math.min(countDeltas + 1, COUNT_DELTAS_MAXIMUM);
+        delayAccumulated += delta;
+        delaySmoothed = SMOOTHING * delaySmoothed + (1 - SMOOTHING) * delayAccumulated;
+        windowTime[windowIndex] = time;
+        windowDelay[windowIndex] = delaySmoothed;
+        windowIndex = (windowIndex + 1) % SIZE_WINDOW;
+        windowCount = Math.min(windowCount + 1, SIZE_WINDOW);
+        if (windowCount < SIZE_WINDOW) return;
+
+        double meanTime = 0, meanDelay = 0;
+        for (int index = 0; index < SIZE_WINDOW; index += 1) {
+            meanTime += windowTime[index];
+            meanDelay += windowDelay[index];
+        }
+        meanTime /= SIZE_WINDOW;
+        meanDelay /= SIZE_WINDOW;
+        double numerator = 0, denominator = 0;
+        for (int index = 0; index < SIZE_WINDOW; index += 1) {
+            numerator += (windowTime[index] - meanTime) * (windowDelay[index] - meanDelay);
+            denominator += (windowTime[index] - meanTime) * (windowTime[index] - meanTime);
+        }
+        final double slope = denominator == 0 ? 0 : numerator / denominator;
+        trend = slope * countDeltas * GAIN_TREND;
+
+        if (trend > threshold) {
+            countOverusing += 1;
+            if (countOverusing >= COUNT_OVERUSE) signal = SIGNAL_OVERUSE;
+        } else if (trend < -threshold) {
+            countOverusing = 0;
+            signal = SIGNAL_UNDERUSE;
+        } else {
+            countOverusing = 0;
+            signal = SIGNAL_NORMAL;
+        }
+
+        final double magnitude = Math.abs(trend);
+        if (magnitude <= threshold + 15) {
+            final double elapsed = Math.min(time - timeUpdateLast, 100);
+            threshold += (magnitude < threshold ? K_DOWN : K_UP) * (magnitude - threshold) * elapsed;
+            threshold = Math.max(THRESHOLD_MINIMUM, Math.min(THRESHOLD_MAXIMUM, threshold));
+        }
+        timeUpdateLast = time;
+    }
+
+    public void report(final long timeNow, final long addressUDPSender, final Packet packet) {
+        long expected = 0;
+        long received = 0;
+        for (int stream = 0; stream < started.length; stream += 1) {
+            if (!started[stream]) continue;
+            expected += sequenceHighest[stream] - sequenceBase[stream] + 1;
+            received += countReceived[stream];
+            sequenceBase[stream] = sequenceHighest[stream] + 1;
+            countReceived[stream] = 0;
+        }
+        final float loss = expected > 0 ? Math.max(0, 1 - (float) received / expected) : 0;
+        final long bitrate = timeNow - timeReport > 0 ? bytesReceived * 8 * 1_000_000_000L / (timeNow - timeReport) : 0;
+        bitrateReceived = bitrateReceived == 0 ? bitrate : (bitrateReceived * 3 + bitrate) / 4;
+        bytesReceived = 0;
+        timeReport = timeNow;
+
+        packet.putLong(FeedbackReporter.OFFSET_ADDRESS_SENDER, addressUDPSender);
+        packet.putLong(FeedbackReporter.OFFSET_BITRATE, bitrateReceived);
+        packet.putFloat(FeedbackReporter.OFFSET_LOSS, loss);
+        packet.putByte(FeedbackReporter.OFFSET_SIGNAL, signal);
+        packet.setType(Packet.TYPE_FEEDBACK).setLength(FeedbackReporter.SIZE_REPORT);
+    }
+
+    public long timeArrivalLast() { return timeArrivalLast; }
+    public double trend() { return trend; }
+    public double threshold() { return threshold; }
+    public byte signal() { return signal; }
+}
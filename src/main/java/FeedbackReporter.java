@@ -0,0 +1,65 @@
+import org.agrona.collections.Long2ObjectHashMap;
+
+class FeedbackReporter extends Consumer {
+    public static final int OFFSET_ADDRESS_SENDER = Packet.SIZE_HEADER;
+    public static final int OFFSET_BITRATE = Packet.SIZE_HEADER + 8;
+    public static final int OFFSET_LOSS = Packet.SIZE_HEADER + 16;
+    public static final int OFFSET_SIGNAL = Packet.SIZE_HEADER + 20;
+    public static final int SIZE_REPORT = 21;
+    public static final int COUNT_STREAMS = 1 + UDP.COUNT_LAYERS;
+    public static final int STREAMS_TREND = (1 << COUNT_STREAMS) - 2;
+
+    private static final long NANOS_REPORT = 100_000_000L;
+    private static final long NANOS_STALE = 2_000_000_000L;
+
+    private final long addressUDP;
+    private final Sender sender;
+    private final Long2ObjectHashMap<DelayEstimator> addressUDPToEstimator = new Long2ObjectHashMap<>();
+    private final Packet report = new Packet();
+    private long timeReport = 0;
+
+    public FeedbackReporter(final long addressUDP, final Sender sender) {
+        super(0, (byte) (Packet.TYPE_AUDIO | Packet.TYPE_VIDEO));
+        this.addressUDP = addressUDP;
+        this.sender = sender;
+        report.wrap(new byte[Packet.SIZE_HEADER + SIZE_REPORT]);
+        report.setAddressUDP(addressUDP);
+        start();
+    }
+
+    public static int stream(final Packet packet) {
+        return (packet.type() & Packet.TYPE_AUDIO) != 0 ? 0 : 1 + packet.layer();
+    }
+
+    @Override protected void consume(final Packet packet) {
+        final long addressUDPSender = packet.addressUDP();
+        if (addressUDPSender == addressUDP || (packet.flags() & Packet.FLAG_RECOVERED) != 0) return;
+        DelayEstimator estimator = addressUDPToEstimator.get(addressUDPSender);
+        if (estimator == null) {
+            estimator = new DelayEstimator(COUNT_STREAMS, STREAMS_TREND);
+            addressUDPToEstimator.put(addressUDPSender, estimator);
+        }
+        estimator.receive(stream(packet), packet.sequence(), packet.time(), System.nanoTime(), packet.size());
+    }
+
+    @Override protected int run() {
+        int work = super.run();
+        final long now = System.nanoTime();
+        if (now - timeReport < NANOS_REPORT) return work;
+        timeReport = now;
+        final Long2ObjectHashMap<DelayEstimator>.EntryIterator iterator = addressUDPToEstimator.entrySet().iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            if (now - iterator.getValue().timeArrivalLast() > NANOS_STALE) {
+                iterator.remove();
+                continue;
+            }
+            iterator.getValue().report(now, iterator.getLongKey(), report);
+            sender.send(iterator.getLongKey(), report);
+            work += 1;
+        }
+        return work;
+    }
+
+    public interface Sender { void send(final long addressUDPSender, final Packet report); }
+}
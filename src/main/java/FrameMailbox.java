@@ -0,0 +1,50 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class FrameMailbox {
+    private static final int FRESH = 4;
+    private static final int MASK = 3;
+
+    private final BufferedImage[] images = new BufferedImage[3];
+    private final long[] times = new long[3];
+    private final AtomicInteger ready = new AtomicInteger(1);
+    private int writing = 0;
+    private int reading = 2;
+    private volatile long countPublished = 0;
+    private volatile long countDropped = 0;
+
+    public FrameMailbox(final int width, final int height) {
+        for (int index = 0; index < images.length; index += 1) images[index] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    public long countPublished() { return countPublished; }
+    public long countDropped() { return countDropped; }
+
+    public void publish(final BufferedImage image, final long time) {
+        final BufferedImage target = images[writing];
+        if (image.getType() == target.getType() && image.getWidth() == target.getWidth() && image.getHeight() == target.getHeight()
+            && image.getRaster().getDataBuffer() instanceof DataBufferInt) {
+            final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            System.arraycopy(pixels, 0, ((DataBufferInt) target.getRaster().getDataBuffer()).getData(), 0, pixels.length);
+        } else {
+            final Graphics graphics = target.getGraphics();
+            graphics.drawImage(image, 0, 0, target.getWidth(), target.getHeight(), null);
+            graphics.dispose();
+        }
+        times[writing] = time;
+        final int previous = ready.getAndSet(writing | FRESH);
+        if ((previous & FRESH) != 0) countDropped += 1;
+        writing = previous & MASK;
+        countPublished += 1;
+    }
+
+    public BufferedImage take() {
+        if ((ready.get() & FRESH) == 0) return null;
+        reading = ready.getAndSet(reading) & MASK;
+        return images[reading];
+    }
+
+    public long time() { return times[reading]; }
+}
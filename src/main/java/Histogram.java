@@ -0,0 +1,47 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class Histogram {
+    private static final int BITS_PRECISION = 5;
+    private static final int SIZE_HALF = 1 << BITS_PRECISION;
+    public static final int SIZE = index(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SIZE);
+
+    static int index(final long value) {
+        if (value < SIZE_HALF * 2) return (int) Math.max(0, value);
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - BITS_PRECISION;
+        return shift * SIZE_HALF + (int) (value >>> shift);
+    }
+
+    static long value(final int index) {
+        if (index < SIZE_HALF * 2) return index;
+        final int shift = index / SIZE_HALF - 1;
+        final long lowest = (long) (index - shift * SIZE_HALF) << shift;
+        return lowest < 0 ? Long.MAX_VALUE : lowest + (1L << shift) - 1;
+    }
+
+    public void record(final long value) {
+        counts.getAndIncrement(index(value));
+    }
+
+    public void copyInto(final long[] counts) {
+        for (int index = 0; index < SIZE; index += 1) counts[index] = this.counts.get(index);
+    }
+
+    static long count(final long[] counts) {
+        long count = 0;
+        for (final long value : counts) count += value;
+        return count;
+    }
+
+    static long percentile(final long[] counts, final long count, final double quantile) {
+        if (count == 0) return 0;
+        final long rank = Math.max(1, (long) Math.ceil(count * quantile));
+        long seen = 0;
+        for (int index = 0; index < SIZE; index += 1) {
+            seen += counts[index];
+            if (seen >= rank) return value(index);
+        }
+        return value(SIZE - 1);
+    }
+}
@@ -0,0 +1,190 @@
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteOrder;
+import java.util.SplittableRandom;
+
+class JitterBuffer {
+    private static final int SHIFT_JITTER = 4;
+    private static final int FACTOR_SPEED = 16;
+    private static final int FRAMES_CONCEALED_MAXIMUM = 4;
+
+    private final float sampleRate;
+    private final ByteOrder byteOrder;
+    private final short[] samples;
+    private final boolean[] filled;
+    private final short[] history;
+    private final short[] scratch;
+    private final int mask;
+    private final int delayMinimum;
+    private final int delayMaximum;
+
+    private boolean started = false;
+    private long timeBase;
+    private long playhead;
+    private long highest;
+    private long transitLast;
+    private long jitter = 0;
+    private int samplesPerPacket = 0;
+    private int framesConcealed = 0;
+    private int levelComfortNoise = -1;
+    private final SplittableRandom random = new SplittableRandom();
+
+    private long countPackets = 0;
+    private long countLate = 0;
+    private long countConcealed = 0;
+    private long countComfortNoise = 0;
+    private long countAccelerated = 0;
+    private long countDecelerated = 0;
+
+    public JitterBuffer(final AudioFormat audioFormat, final int millisecondsMinimum, final int millisecondsMaximum) {
+        if (audioFormat.getSampleSizeInBits() != 16 || audioFormat.getChannels() != 1) throw new IllegalArgumentException(audioFormat.toString());
+        sampleRate = audioFormat.getSampleRate();
+        byteOrder = audioFormat.isBigEndian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        delayMinimum = samples(millisecondsMinimum);
+        delayMaximum = samples(millisecondsMaximum);
+        final int capacity = BitUtil.findNextPositivePowerOfTwo(delayMaximum * 4);
+        samples = new short[capacity];
+        filled = new boolean[capacity];
+        mask = capacity - 1;
+        history = new short[samples(10)];
+        scratch = new short[capacity];
+    }
+
+    private int samples(final int milliseconds) { return (int) (sampleRate * milliseconds / 1000); }
+
+    private long position(final long time) { return Math.round((time - timeBase) * (double) sampleRate / 1_000_000_000L); }
+
+    public synchronized void write(final DirectBuffer buffer, final int offset, final int length, final long time, final long timeArrival) {
+        final int count = length / 2;
+        if (!started) {
+            started = true;
+            timeBase = time;
+            transitLast = timeArrival - time;
+            highest = 0;
+            playhead = -Math.max(delayMinimum, count);
+        }
+        final long start = position(time);
+        countPackets += 1;
+        levelComfortNoise = -1;
+
+        final long transit = timeArrival - time;
+        jitter += (Math.abs(transit - transitLast) - jitter) >> SHIFT_JITTER;
+        transitLast = transit;
+        samplesPerPacket = count;
+
+        if (start + count <= playhead) { countLate += 1; return; }
+        if (start >= playhead + samples.length) {
+            playhead = start - delayTarget();
+            highest = playhead;
+            for (int index = 0; index < filled.length; index += 1) filled[index] = false;
+        }
+        for (int index = 0; index < count; index += 1) {
+            final long position = start + index;
+            if (position < playhead || position >= playhead + samples.length) continue;
+            samples[(int) position & mask] = buffer.getShort(offset + index * 2, byteOrder);
+            filled[(int) position & mask] = true;
+        }
+        highest = Math.max(highest, start + count);
+    }
+
+    public synchronized void silence(final int level) {
+        if (started) levelComfortNoise = level;
+    }
+
+    public synchronized int delayTarget() {
+        final int delayJitter = (int) (jitter * 4 * sampleRate / 1_000_000_000L);
+        return Math.max(delayMinimum, Math.min(delayMaximum, samplesPerPacket + delayJitter));
+    }
+
+    public synchronized long depth() { return highest - playhead; }
+
+    public synchronized long timePlayout() {
+        if (!started) return RemoteClock.UNKNOWN;
+        return timeBase + (long) (playhead * 1_000_000_000.0 / sampleRate);
+    }
+
+    public synchronized void read(final short[] output, final int offset, final int count) {
+        final long depth = highest - playhead;
+        if (started && depth <= 0 && levelComfortNoise >= 0) {
+            final int amplitude = levelComfortNoise * 7 / 4;
+            for (int index = 0; index < count; index += 1) output[offset + index] = (short) random.nextInt(-amplitude, amplitude + 1);
+            playhead += count;
+            countComfortNoise += 1;
+            return;
+        }
+        if (!started || depth <= 0) {
+            conceal(output, offset, count);
+            return;
+        }
+        final int target = delayTarget();
+        if (depth > delayMaximum + samplesPerPacket) {
+            final long playheadNext = highest - target;
+            for (long position = playhead; position < playheadNext && position < playhead + samples.length; position += 1) filled[(int) position & mask] = false;
+            playhead = playheadNext;
+        }
+
+        int consumed = count;
+        if (depth > target + Math.max(samplesPerPacket, count) && depth > count) {
+            consumed = count + count / FACTOR_SPEED;
+            countAccelerated += 1;
+        } else if (depth < target - count / 2 && depth > 0) {
+            consumed = count - count / FACTOR_SPEED;
+            countDecelerated += 1;
+        }
+
+        boolean concealed = false;
+        for (int index = 0; index < consumed; index += 1) {
+            final int slot = (int) (playhead + index) & mask;
+            if (filled[slot]) {
+                scratch[index] = samples[slot];
+                filled[slot] = false;
+            } else {
+                concealed = true;
+                scratch[index] = concealment(index);
+            }
+        }
+        if (concealed) {
+            framesConcealed += 1;
+            countConcealed += 1;
+        } else {
+            framesConcealed = 0;
+        }
+        playhead += consumed;
+
+        for (int index = 0; index < count; index += 1) {
+            final int numerator = index * consumed;
+            final int source = numerator / count;
+            final int fraction = numerator % count;
+            final int next = Math.min(consumed - 1, source + 1);
+            output[offset + index] = (short) (scratch[source] + (scratch[next] - scratch[source]) * fraction / count);
+        }
+        if (!concealed) {
+            final int length = Math.min(history.length, count);
+            System.arraycopy(output, offset + count - length, history, 0, length);
+        }
+    }
+
+    private void conceal(final short[] output, final int offset, final int count) {
+        for (int index = 0; index < count; index += 1) output[offset + index] = concealment(index);
+        if (started) {
+            framesConcealed += 1;
+            countConcealed += 1;
+        }
+    }
+
+    private short concealment(final int index) {
+        if (!started || framesConcealed >= FRAMES_CONCEALED_MAXIMUM) return 0;
+        final int attenuation = framesConcealed + 1;
+        return (short) (history[index % history.length] / (attenuation * attenuation));
+    }
+
+    public synchronized long jitterNanos() { return jitter; }
+    public synchronized long countPackets() { return countPackets; }
+    public synchronized long countLate() { return countLate; }
+    public synchronized long countConcealed() { return countConcealed; }
+    public synchronized long countComfortNoise() { return countComfortNoise; }
+    public synchronized long countAccelerated() { return countAccelerated; }
+    public synchronized long countDecelerated() { return countDecelerated; }
+}
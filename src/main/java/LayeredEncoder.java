@@ -0,0 +1,170 @@
+import org.agrona.ExpandableDirectByteBuffer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class LayeredEncoder {
+    public static final Layer[] LAYERS = { new Layer(1, 1), new Layer(2, 2), new Layer(4, 3) };
+    public static final Level[] LEVELS = {
+        new Level(1, 1, 0), new Level(1, 1, 1), new Level(1, 2, 1), new Level(1, 3, 1), new Level(2, 2, 1), new Level(2, 3, 1)
+    };
+
+    private static final long NANOS_MEASUREMENT = 500_000_000L;
+    private static final long NANOS_SETTLE = 1_500_000_000L;
+    private static final long NANOS_HOLD_INCREASE = 3_000_000_000L;
+    private static final int SCALE_MAXIMUM = 2;
+
+    private final int width;
+    private final int height;
+    private final long addressUDP;
+    private final VideoCodec codec;
+    private final Layer[] layers;
+    private final Encoding[][] encodings;
+    private final int[] sequences;
+    private final long[] bitrateAtLevel = new long[LEVELS.length];
+    private final ExpandableDirectByteBuffer bytes = new ExpandableDirectByteBuffer(1 << 16);
+    private volatile long target = Long.MAX_VALUE;
+    private final AtomicInteger keyframesRequested = new AtomicInteger();
+    private int layersEncoded = 1;
+    private int level = 0;
+    private long frame = 0;
+    private long timeMeasurement = 0;
+    private long timeLevel = 0;
+    private long bytesMeasurement = 0;
+    private long bitrate = 0;
+
+    public LayeredEncoder(final int width, final int height, final long addressUDP, final VideoCodec codec, final Layer[] layers) {
+        if (layers.length == 0 || layers.length > UDP.COUNT_LAYERS) throw new IllegalArgumentException("layers.length=" + layers.length);
+        this.width = width;
+        this.height = height;
+        this.addressUDP = addressUDP;
+        this.codec = codec;
+        this.layers = layers;
+        encodings = new Encoding[layers.length][SCALE_MAXIMUM + 1];
+        sequences = new int[layers.length];
+    }
+
+    public void requestKeyframe(final int layer) { keyframesRequested.accumulateAndGet(1 << layer, (left, right) -> left | right); }
+    public void setTarget(final long bitsPerSecond) { target = bitsPerSecond; }
+    public int level() { return level; }
+    public long bitrate() { return bitrate; }
+
+    public int encode(final BufferedImage source, final long time, final RingBuffer<Packet> buffer) {
+        return encode(source, time, buffer, -1);
+    }
+
+    public int encode(final BufferedImage source, final long time, final RingBuffer<Packet> buffer, final int layersActive) {
+        adapt(time);
+        final Level level = LEVELS[this.level];
+        final int layersEnabled = layersActive | 1;
+        final int keyframes = keyframesRequested.getAndSet(0) | layersEnabled & ~layersEncoded;
+        layersEncoded = layersEnabled;
+        for (int index = 0; index < layers.length; index += 1) {
+            if ((keyframes & (1 << index)) != 0) encoding(index, level.scale).encoder.requestKeyframe();
+        }
+        int work = 0;
+        for (int index = 0; index < layers.length; index += 1) {
+            if ((layersEnabled & (1 << index)) == 0) continue;
+            if (frame % (layers[index].divisorFrames * level.divisorFrames) != 0) continue;
+            final Encoding encoding = encoding(index, level.scale);
+            if (encoding.image != null) encoding.graphics.drawImage(source, 0, 0, encoding.image.getWidth(), encoding.image.getHeight(), null);
+            encoding.encoder.setQuality(level.degradation);
+            final int length = encoding.encoder.encode(encoding.image != null ? encoding.image : source, bytes);
+            if (length == 0) continue;
+            
+            final Packet packet = buffer.claim();
+            packet.allocate(Packet.SIZE_HEADER + length);
+            packet.putBytes(Packet.SIZE_HEADER, bytes, 0, length);
+            packet.setType(Packet.TYPE_VIDEO).setLength(length).setAddressUDP(addressUDP).setLayer(index).setTime(time).setSequence(sequences[index]++)
+                .setFlags(codec.isKeyframe(bytes, 0, length) ? Packet.FLAG_KEYFRAME : 0);
+            buffer.commit();
+            bytesMeasurement += packet.size();
+            work += 1;
+        }
+        frame += 1;
+        return work;
+    }
+
+    private Encoding encoding(final int layer, final int scale) {
+        Encoding encoding = encodings[layer][scale];
+        if (encoding == null) {
+            final int divisor = layers[layer].divisorScale * scale;
+            encoding = new Encoding(width / divisor, height / divisor, divisor != 1, codec);
+            encodings[layer][scale] = encoding;
+        }
+        return encoding;
+    }
+
+    private void adapt(final long time) {
+        if (timeMeasurement == 0) {
+            timeMeasurement = time;
+            timeLevel = time;
+            return;
+        }
+        if (time - timeMeasurement < NANOS_MEASUREMENT) return;
+        final long sample = bytesMeasurement * 8 * 1_000_000_000L / (time - timeMeasurement);
+        bytesMeasurement = 0;
+        timeMeasurement = time;
+        if (level > 0) bitrateAtLevel[level - 1] = bitrateAtLevel[level - 1] * 63 / 64;
+        final long age = time - timeLevel;
+        final long target = this.target;
+        if (sample / 2 > target && age > NANOS_MEASUREMENT && level < LEVELS.length - 1) {
+            setLevel(level + 1, time);
+            return;
+        }
+        if (age <= NANOS_SETTLE) return;
+        bitrate = age <= NANOS_SETTLE + NANOS_MEASUREMENT ? sample : (bitrate * 3 + sample) / 4;
+        bitrateAtLevel[level] = bitrate;
+        if (age <= NANOS_SETTLE + NANOS_MEASUREMENT) return;
+
+        if (bitrate > target && level < LEVELS.length - 1) {
+            setLevel(level + 1, time);
+        } else if (level > 0 && time - timeLevel > NANOS_HOLD_INCREASE) {
+            final long bitrateNext = bitrateAtLevel[level - 1] == 0 ? bitrate * 3 / 2 : bitrateAtLevel[level - 1];
+            if (bitrateNext * 11 / 10 < target) setLevel(level - 1, time);
+        }
+    }
+
+    private void setLevel(final int level, final long time) {
+        if (LEVELS[level].scale != LEVELS[this.level].scale) keyframesRequested.set((1 << layers.length) - 1);
+        Logging.of(this).info("level=" + level + " bitrate=" + bitrate + " target=" + target);
+        this.level = level;
+        timeLevel = time;
+    }
+
+    static class Layer {
+        final int divisorScale;
+        final int divisorFrames;
+
+        Layer(final int divisorScale, final int divisorFrames) {
+            this.divisorScale = divisorScale;
+            this.divisorFrames = divisorFrames;
+        }
+    }
+
+    static class Level {
+        final int scale;
+        final int divisorFrames;
+        final int degradation;
+
+        Level(final int scale, final int divisorFrames, final int degradation) {
+            this.scale = scale;
+            this.divisorFrames = divisorFrames;
+            this.degradation = degradation;
+        }
+    }
+
+    private static class Encoding {
+        final BufferedImage image;
+        final Graphics2D graphics;
+        final VideoCodec.Encoder encoder;
+
+        Encoding(final int width, final int height, final boolean scaled, final VideoCodec codec) {
+            image = scaled ? new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB) : null;
+            graphics = scaled ? image.createGraphics() : null;
+            if (scaled) graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            encoder = codec.encoder(width, height);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+class LineSink implements AudioSink {
+    private final SourceDataLine line;
+    private final boolean bigEndian;
+    private final int frameSize;
+    private byte[] bytes = new byte[0];
+
+    public LineSink(final AudioFormat audioFormat, final int samplesBuffered) throws LineUnavailableException {
+        bigEndian = audioFormat.isBigEndian();
+        frameSize = audioFormat.getFrameSize();
+        line = (SourceDataLine) AudioSystem.getLine(new DataLine.Info(SourceDataLine.class, audioFormat));
+        line.open(audioFormat, samplesBuffered * audioFormat.getFrameSize());
+        line.start();
+    }
+
+    @Override public int writable() { return line.available() / frameSize; }
+    @Override public int buffered() { return (line.getBufferSize() - line.available()) / frameSize; }
+
+    @Override public void write(final short[] samples, final int offset, final int count) {
+        if (bytes.length < count * 2) bytes = new byte[count * 2];
+        for (int index = 0; index < count; index += 1) {
+            final int high = bigEndian ? index * 2 : index * 2 + 1;
+            bytes[high] = (byte) (samples[offset + index] >> 8);
+            bytes[high ^ 1] = (byte) samples[offset + index];
+        }
+        line.write(bytes, 0, count * 2);
+    }
+
+    @Override public void close() {
+        line.stop();
+        line.close();
+    }
+}
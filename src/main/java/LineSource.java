@@ -0,0 +1,23 @@
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.TargetDataLine;
+
+class LineSource implements AudioSource {
+    private final TargetDataLine line;
+
+    public LineSource(final AudioFormat audioFormat) throws LineUnavailableException {
+        line = (TargetDataLine) AudioSystem.getLine(new DataLine.Info(TargetDataLine.class, audioFormat));
+        line.open(audioFormat);
+        line.start();
+    }
+
+    @Override public int available() { return line.available(); }
+    @Override public void read(final byte[] bytes, final int offset, final int length) { line.read(bytes, offset, length); }
+
+    @Override public void close() {
+        line.stop();
+        line.close();
+    }
+}
@@ -0,0 +1,21 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.*;
+
+class Logging {
+    private static ConcurrentHashMap<String, Logger> nameToLogger = new ConcurrentHashMap<>();
+    
+    public static Logger of(final Object object) {
+        return of(object.getClass());
+    }
+    
+    public static Logger of(final Class clazz) {
+        if (nameToLogger.size() == 0) System.setProperty("java.util.logging.SimpleFormatter.format", "%1$tF %1$tT %4$s %2$s %5$s%6$s%n");
+
+        if (!nameToLogger.containsKey(clazz.getName())) {
+            final Logger logger = Logger.getLogger(clazz.getName());
+            logger.setLevel(Level.ALL);
+            nameToLogger.put(clazz.getName(), logger);
+        }
+        return nameToLogger.get(clazz.getName());
+    }
+}
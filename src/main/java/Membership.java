@@ -0,0 +1,424 @@
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongArrayList;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+class Membership extends Daemon {
+    public static final byte STATUS_ALIVE = 0;
+    public static final byte STATUS_SUSPECT = 1;
+    public static final byte STATUS_DEAD = 2;
+
+    public static final int OFFSET_UPDATE_ADDRESS = 0;
+    public static final int OFFSET_UPDATE_ADDRESS_UDP = 8;
+    public static final int OFFSET_UPDATE_INCARNATION = 16;
+    public static final int OFFSET_UPDATE_STATUS = 20;
+    public static final int SIZE_UPDATE = 24;
+
+    private static final byte KIND_PING = 0;
+    private static final byte KIND_ACK = 1;
+    private static final byte KIND_PING_REQUEST = 2;
+    private static final byte KIND_GOSSIP = 3;
+
+    private static final int OFFSET_KIND = 0;
+    private static final int OFFSET_COUNT = 1;
+    private static final int OFFSET_INCARNATION = 4;
+    private static final int OFFSET_SEQUENCE = 8;
+    private static final int OFFSET_SENDER = 16;
+    private static final int OFFSET_SENDER_UDP = 24;
+    private static final int OFFSET_SUBJECT = 32;
+    private static final int SIZE_HEADER = 40;
+    private static final int SIZE_DATAGRAM = 1 << 10;
+    private static final int COUNT_UPDATES_MAXIMUM = (SIZE_DATAGRAM - SIZE_HEADER) / SIZE_UPDATE;
+    private static final int COUNT_INDIRECT = 3;
+    private static final int COUNT_LEAVE = 4;
+    private static final int MULTIPLIER_RETRANSMIT = 3;
+
+    private static final long NANOS_PROTOCOL = 250_000_000L;
+    private static final long NANOS_PING = 100_000_000L;
+    private static final long NANOS_SUSPECT = 2_000_000_000L;
+    private static final long NANOS_TOMBSTONE = 30_000_000_000L;
+    private static final long NANOS_RELAY = 1_000_000_000L;
+
+    private final long address;
+    private final long addressUDP;
+    private final Listener onAlive;
+    private final Listener onDead;
+    private DatagramChannel channel;
+    private final ByteBuffer inbound = ByteBuffer.allocateDirect(SIZE_DATAGRAM);
+    private final UnsafeBuffer inboundView = new UnsafeBuffer(inbound);
+    private final ByteBuffer outbound = ByteBuffer.allocateDirect(SIZE_DATAGRAM);
+    private final UnsafeBuffer outboundView = new UnsafeBuffer(outbound);
+    private final Long2ObjectHashMap<Member> addressToMember = new Long2ObjectHashMap<>();
+    private final Long2ObjectHashMap<Relayed> sequenceToRelayed = new Long2ObjectHashMap<>();
+    private final List<Update> updates = new ArrayList<>();
+    private final LongArrayList order = new LongArrayList();
+    private final LongArrayList candidates = new LongArrayList();
+    private final SplittableRandom random = new SplittableRandom();
+    private int incarnation = (int) (System.currentTimeMillis() / 1_000);
+    private long sequence = 0;
+    private int indexOrder = 0;
+    private long target = 0;
+    private long sequenceProbe = 0;
+    private long timeProbe = 0;
+    private boolean acknowledged = true;
+    private boolean indirect = false;
+    private boolean left = false;
+
+    public Membership(final long address, final long addressUDP, final Listener onAlive, final Listener onDead) {
+        super(5);
+        this.address = address;
+        this.addressUDP = addressUDP;
+        this.onAlive = onAlive;
+        this.onDead = onDead;
+    }
+
+    public synchronized int count(final byte status) {
+        int count = 0;
+        for (final Member member : addressToMember.values()) if (member.status == status) count += 1;
+        return count;
+    }
+
+    public synchronized Packet snapshot(final Packet packet) {
+        packet.allocate(Packet.SIZE_HEADER + (addressToMember.size() + 1) * SIZE_UPDATE).setMemory(0, Packet.SIZE_HEADER, (byte) 0);
+        int length = put(packet, Packet.SIZE_HEADER, address, addressUDP, incarnation, STATUS_ALIVE);
+        for (final Member member : addressToMember.values()) {
+            if (member.status != STATUS_DEAD) length = put(packet, length, member.address, member.addressUDP, member.incarnation, member.status);
+        }
+        packet.setLength(length - Packet.SIZE_HEADER);
+        return packet;
+    }
+
+    public synchronized void merge(final DirectBuffer buffer, final int offset, final int length) {
+        for (int position = offset; position + SIZE_UPDATE <= offset + length; position += SIZE_UPDATE) apply(buffer, position);
+    }
+
+    public synchronized void leave() {
+        if (left) return;
+        left = true;
+        updates.clear();
+        updates.add(new Update(address, addressUDP, incarnation, STATUS_DEAD, Integer.MAX_VALUE));
+        candidates(0);
+        for (int index = 0; index < Math.min(COUNT_LEAVE, candidates.size()); index += 1) send(candidates.getLong(index), KIND_GOSSIP, 0, address);
+        Logging.of(this).info("address=" + Addressing.longToPort(address) + " left");
+    }
+
+    @Override protected synchronized int run() {
+        int work = receive();
+        if (left) return work;
+        final long now = System.nanoTime();
+        if (!acknowledged && !indirect && now - timeProbe > NANOS_PING) {
+            indirect = true;
+            candidates(target);
+            for (int index = 0; index < Math.min(COUNT_INDIRECT, candidates.size()); index += 1) {
+                send(candidates.getLong(index), KIND_PING_REQUEST, sequenceProbe, target);
+            }
+            work += 1;
+        }
+        if (now - timeProbe > NANOS_PROTOCOL) {
+            if (!acknowledged) suspect(target);
+            probe(now);
+            work += 1;
+        }
+        return work + expire(now);
+    }
+
+    private int receive() {
+        int work = 0;
+        while (true) {
+            inbound.clear();
+            final SocketAddress from;
+            if (channel == null) return work;
+            try { from = channel.receive(inbound); }
+            catch (IOException exception) {
+                Logging.of(this).warning(exception.toString());
+                return work;
+            }
+            if (from == null) return work;
+            work += 1;
+            if (inbound.position() < SIZE_HEADER || inbound.position() < SIZE_HEADER + inboundView.getByte(OFFSET_COUNT) * SIZE_UPDATE) continue;
+            handle();
+        }
+    }
+
+    private void handle() {
+        final byte kind = inboundView.getByte(OFFSET_KIND);
+        final long sequence = inboundView.getLong(OFFSET_SEQUENCE);
+        final long sender = inboundView.getLong(OFFSET_SENDER);
+        final long subject = inboundView.getLong(OFFSET_SUBJECT);
+        apply(sender, inboundView.getLong(OFFSET_SENDER_UDP), inboundView.getInt(OFFSET_INCARNATION), STATUS_ALIVE);
+        final int count = inboundView.getByte(OFFSET_COUNT);
+        for (int index = 0; index < count; index += 1) apply(inboundView, SIZE_HEADER + index * SIZE_UPDATE);
+        if (left) return;
+
+        final Member member = addressToMember.get(sender);
+        if (kind != KIND_GOSSIP && member != null && member.status == STATUS_DEAD) {
+            gossip(member.address, member.addressUDP, member.incarnation, STATUS_DEAD);
+            send(sender, KIND_GOSSIP, 0, sender);
+            return;
+        }
+        switch (kind) {
+            case KIND_PING:
+                if (subject == address) send(sender, KIND_ACK, sequence, address);
+                break;
+            case KIND_PING_REQUEST:
+                final long sequenceRelay = ++this.sequence;
+                sequenceToRelayed.put(sequenceRelay, new Relayed(sender, sequence, System.nanoTime()));
+                send(subject, KIND_PING, sequenceRelay, subject);
+                break;
+            case KIND_ACK:
+                if (sequence == sequenceProbe && subject == target) {
+                    acknowledged = true;
+                    break;
+                }
+                final Relayed relayed = sequenceToRelayed.remove(sequence);
+                if (relayed != null) send(relayed.address, KIND_ACK, relayed.sequence, subject);
+                break;
+        }
+    }
+
+    private void apply(final DirectBuffer buffer, final int offset) {
+        apply(
+            buffer.getLong(offset + OFFSET_UPDATE_ADDRESS), buffer.getLong(offset + OFFSET_UPDATE_ADDRESS_UDP),
+            buffer.getInt(offset + OFFSET_UPDATE_INCARNATION), buffer.getByte(offset + OFFSET_UPDATE_STATUS)
+        );
+    }
+
+    private void apply(final long address, final long addressUDP, final int incarnation, final byte status) {
+        if (address == this.address) {
+            if (status != STATUS_ALIVE && incarnation >= this.incarnation && !left) {
+                this.incarnation = incarnation + 1;
+                gossip(this.address, this.addressUDP, this.incarnation, STATUS_ALIVE);
+            }
+            return;
+        }
+        Member member = addressToMember.get(address);
+        if (member == null) {
+            member = new Member(address, addressUDP, incarnation, status);
+            addressToMember.put(address, member);
+            if (status == STATUS_DEAD) return;
+            gossip(address, addressUDP, incarnation, status);
+            Logging.of(this).info("address=" + Addressing.longToPort(this.address) + " alive=" + Addressing.longToPort(address));
+            onAlive.on(address, addressUDP);
+            return;
+        }
+        final boolean newer = incarnation > member.incarnation;
+        switch (status) {
+            case STATUS_ALIVE:
+                if (!newer) return;
+                break;
+            case STATUS_SUSPECT:
+                if (member.status == STATUS_DEAD || !(newer || (incarnation == member.incarnation && member.status == STATUS_ALIVE))) return;
+                break;
+            default:
+                if (member.status == STATUS_DEAD || incarnation < member.incarnation) return;
+        }
+        final byte statusPrevious = member.status;
+        member.incarnation = incarnation;
+        member.status = status;
+        member.timeStatus = System.nanoTime();
+        gossip(address, member.addressUDP, incarnation, status);
+        if (status == statusPrevious) return;
+        Logging.of(this).info(
+            "address=" + Addressing.longToPort(this.address) + " member=" + Addressing.longToPort(address)
+            + " status=" + statusPrevious + "->" + status + " incarnation=" + incarnation
+        );
+        if (statusPrevious == STATUS_DEAD) onAlive.on(address, member.addressUDP);
+        if (status == STATUS_DEAD) onDead.on(address, member.addressUDP);
+    }
+
+    private void suspect(final long address) {
+        final Member member = addressToMember.get(address);
+        if (member == null || member.status != STATUS_ALIVE) return;
+        apply(address, member.addressUDP, member.incarnation, STATUS_SUSPECT);
+    }
+
+    private void probe(final long now) {
+        timeProbe = now;
+        acknowledged = true;
+        indirect = false;
+        final long target = next();
+        if (target == 0) return;
+        this.target = target;
+        sequenceProbe = ++sequence;
+        acknowledged = false;
+        send(target, KIND_PING, sequenceProbe, target);
+    }
+
+    private long next() {
+        for (int attempt = 0; attempt < 2; attempt += 1) {
+            while (indexOrder < order.size()) {
+                final Member member = addressToMember.get(order.getLong(indexOrder++));
+                if (member != null && member.status != STATUS_DEAD) return member.address;
+            }
+            order.clear();
+            indexOrder = 0;
+            for (final Member member : addressToMember.values()) if (member.status != STATUS_DEAD) order.addLong(member.address);
+            shuffle(order);
+        }
+        return 0;
+    }
+
+    private void candidates(final long excluded) {
+        candidates.clear();
+        for (final Member member : addressToMember.values()) {
+            if (member.status == STATUS_ALIVE && member.address != excluded) candidates.addLong(member.address);
+        }
+        shuffle(candidates);
+    }
+
+    private void shuffle(final LongArrayList list) {
+        for (int index = list.size() - 1; index > 0; index -= 1) {
+            final int swap = random.nextInt(index + 1);
+            final long value = list.getLong(index);
+            list.setLong(index, list.getLong(swap));
+            list.setLong(swap, value);
+        }
+    }
+
+    private int expire(final long now) {
+        int work = 0;
+        final Long2ObjectHashMap<Member>.EntryIterator iterator = addressToMember.entrySet().iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            final Member member = iterator.getValue();
+            if (member.status == STATUS_SUSPECT && now - member.timeStatus > NANOS_SUSPECT) {
+                apply(member.address, member.addressUDP, member.incarnation, STATUS_DEAD);
+                work += 1;
+            } else if (member.status == STATUS_DEAD && now - member.timeStatus > NANOS_TOMBSTONE) {
+                iterator.remove();
+                work += 1;
+            }
+        }
+        final Long2ObjectHashMap<Relayed>.EntryIterator iteratorRelayed = sequenceToRelayed.entrySet().iterator();
+        while (iteratorRelayed.hasNext()) {
+            iteratorRelayed.next();
+            if (now - iteratorRelayed.getValue().time > NANOS_RELAY) iteratorRelayed.remove();
+        }
+        return work;
+    }
+
+    private void gossip(final long address, final long addressUDP, final int incarnation, final byte status) {
+        updates.removeIf(update -> update.address == address);
+        final int transmissions = MULTIPLIER_RETRANSMIT * (32 - Integer.numberOfLeadingZeros(addressToMember.size() + 1));
+        updates.add(new Update(address, addressUDP, incarnation, status, transmissions));
+    }
+
+    private void send(final long addressTarget, final byte kind, final long sequence, final long subject) {
+        outboundView.putByte(OFFSET_KIND, kind);
+        outboundView.putInt(OFFSET_INCARNATION, incarnation);
+        outboundView.putLong(OFFSET_SEQUENCE, sequence);
+        outboundView.putLong(OFFSET_SENDER, address);
+        outboundView.putLong(OFFSET_SENDER_UDP, addressUDP);
+        outboundView.putLong(OFFSET_SUBJECT, subject);
+        int count = 0;
+        for (int index = updates.size() - 1; index >= 0 && count < COUNT_UPDATES_MAXIMUM; index -= 1) {
+            final Update update = updates.get(index);
+            put(outboundView, SIZE_HEADER + count * SIZE_UPDATE, update.address, update.addressUDP, update.incarnation, update.status);
+            update.remaining -= 1;
+            count += 1;
+        }
+        updates.removeIf(update -> update.remaining <= 0);
+        outboundView.putByte(OFFSET_COUNT, (byte) count);
+        outbound.limit(SIZE_HEADER + count * SIZE_UPDATE).position(0);
+        if (channel == null) return;
+        try { channel.send(outbound, Addressing.longToInetSocketAddress(addressTarget)); }
+        catch (IOException exception) { Logging.of(this).warning(exception.toString()); }
+    }
+
+    private static int put(
+        final MutableDirectBuffer buffer, final int offset, final long address, final long addressUDP, final int incarnation, final byte status
+    ) {
+        buffer.putLong(offset + OFFSET_UPDATE_ADDRESS, address);
+        buffer.putLong(offset + OFFSET_UPDATE_ADDRESS_UDP, addressUDP);
+        buffer.putInt(offset + OFFSET_UPDATE_INCARNATION, incarnation);
+        buffer.putByte(offset + OFFSET_UPDATE_STATUS, status);
+        return offset + SIZE_UPDATE;
+    }
+
+    @Override public synchronized void onStart() {
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.bind(Addressing.longToInetSocketAddress(address));
+            Logging.of(this).info("address=" + Addressing.longToPort(address) + " incarnation=" + incarnation);
+        } catch (IOException exception) {
+            Logging.of(this).warning(exception.toString());
+            close();
+        }
+    }
+
+    @Override public synchronized void onClose() {
+        close();
+        addressToMember.clear();
+        sequenceToRelayed.clear();
+        updates.clear();
+        order.clear();
+        indexOrder = 0;
+        target = 0;
+        acknowledged = true;
+        indirect = false;
+        left = false;
+        incarnation = Math.max(incarnation + 1, (int) (System.currentTimeMillis() / 1_000));
+    }
+
+    private void close() {
+        if (channel == null) return;
+        try { channel.close(); }
+        catch (IOException exception) { Logging.of(this).warning(exception.toString()); }
+        channel = null;
+    }
+
+    public interface Listener { void on(final long address, final long addressUDP); }
+
+    private static class Member {
+        final long address;
+        final long addressUDP;
+        int incarnation;
+        byte status;
+        long timeStatus = System.nanoTime();
+
+        Member(final long address, final long addressUDP, final int incarnation, final byte status) {
+            this.address = address;
+            this.addressUDP = addressUDP;
+            this.incarnation = incarnation;
+            this.status = status;
+        }
+    }
+
+    private static class Update {
+        final long address;
+        final long addressUDP;
+        final int incarnation;
+        final byte status;
+        int remaining;
+
+        Update(final long address, final long addressUDP, final int incarnation, final byte status, final int remaining) {
+            this.address = address;
+            this.addressUDP = addressUDP;
+            this.incarnation = incarnation;
+            this.status = status;
+            this.remaining = remaining;
+        }
+    }
+
+    private static class Relayed {
+        final long address;
+        final long sequence;
+        final long time;
+
+        Relayed(final long address, final long sequence, final long time) {
+            this.address = address;
+            this.sequence = sequence;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.agrona.concurrent.status.CountersReader;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+class Metrics extends Daemon {
+    public static final int COUNT_COUNTERS = 1024;
+    public static final int LENGTH_FILE = COUNT_COUNTERS * (CountersReader.METADATA_LENGTH + CountersReader.COUNTER_LENGTH);
+    public static final Metrics SHARED = new Metrics(
+        new File(System.getProperty("conference.metrics.file", System.getProperty("java.io.tmpdir") + "/conference-" + ProcessHandle.current().pid() + ".metrics")),
+        Integer.getInteger("conference.metrics.period", 1_000),
+        Integer.getInteger("conference.metrics.summary", 10)
+    );
+
+    private static final double[] QUANTILES = { 0.5, 0.99, 0.999, 1.0 };
+    private static final String[] SUFFIXES = { ".p50", ".p99", ".p999", ".max" };
+
+    private final File file;
+    private final MappedByteBuffer mappedByteBuffer;
+    private final CountersManager countersManager;
+    private final int periodsPerSummary;
+    private Gauge[] gauges = new Gauge[0];
+    private Recorded[] recorded = new Recorded[0];
+    private int periods = 0;
+
+    public Metrics(final File file, final int period, final int periodsPerSummary) {
+        super(period);
+        this.file = file;
+        this.periodsPerSummary = periodsPerSummary;
+        mappedByteBuffer = IoUtil.mapNewFile(file, LENGTH_FILE);
+        file.deleteOnExit();
+        countersManager = new CountersManager(
+            new UnsafeBuffer(mappedByteBuffer, 0, COUNT_COUNTERS * CountersReader.METADATA_LENGTH),
+            new UnsafeBuffer(mappedByteBuffer, COUNT_COUNTERS * CountersReader.METADATA_LENGTH, COUNT_COUNTERS * CountersReader.COUNTER_LENGTH)
+        );
+        Logging.of(this).info("file=" + file);
+        start();
+    }
+
+    public File file() { return file; }
+
+    public synchronized void gauge(final String label, final LongSupplier supplier) {
+        gauges = Arrays.copyOf(gauges, gauges.length + 1);
+        gauges[gauges.length - 1] = new Gauge(label, countersManager.allocate(label), supplier);
+    }
+
+    public synchronized void histogram(final String label, final Histogram histogram) {
+        final int[] ids = new int[SUFFIXES.length + 1];
+        ids[0] = countersManager.allocate(label + ".count");
+        for (int index = 0; index < SUFFIXES.length; index += 1) ids[index + 1] = countersManager.allocate(label + SUFFIXES[index]);
+        recorded = Arrays.copyOf(recorded, recorded.length + 1);
+        recorded[recorded.length - 1] = new Recorded(label, ids, histogram);
+    }
+
+    public synchronized void remove(final String label) {
+        int length = 0;
+        for (final Gauge gauge : gauges) {
+            if (gauge.label.equals(label)) countersManager.free(gauge.id);
+            else gauges[length++] = gauge;
+        }
+        gauges = Arrays.copyOf(gauges, length);
+        length = 0;
+        for (final Recorded candidate : recorded) {
+            if (candidate.label.equals(label)) for (final int id : candidate.ids) countersManager.free(id);
+            else recorded[length++] = candidate;
+        }
+        recorded = Arrays.copyOf(recorded, length);
+    }
+
+    @Override protected synchronized int run() {
+        for (final Gauge gauge : gauges) countersManager.setCounterValue(gauge.id, gauge.supplier.getAsLong());
+        for (final Recorded candidate : recorded) {
+            candidate.histogram.copyInto(candidate.current);
+            for (int index = 0; index < Histogram.SIZE; index += 1) candidate.interval[index] = candidate.current[index] - candidate.previous[index];
+            countersManager.setCounterValue(candidate.ids[0], Histogram.count(candidate.current));
+            final long count = Histogram.count(candidate.interval);
+            for (int index = 0; count > 0 && index < QUANTILES.length; index += 1) {
+                countersManager.setCounterValue(candidate.ids[index + 1], Histogram.percentile(candidate.interval, count, QUANTILES[index]));
+            }
+            System.arraycopy(candidate.current, 0, candidate.previous, 0, Histogram.SIZE);
+        }
+        if (++periods % periodsPerSummary == 0) summary();
+        return 1;
+    }
+
+    private void summary() {
+        final StringBuilder builder = new StringBuilder("gauges=" + gauges.length + " histograms=" + recorded.length);
+        for (final Gauge gauge : gauges) builder.append("\n  ").append(gauge.label).append('=').append(gauge.supplier.getAsLong());
+        for (final Recorded candidate : recorded) {
+            for (int index = 0; index < Histogram.SIZE; index += 1) candidate.interval[index] = candidate.current[index] - candidate.summarised[index];
+            final long count = Histogram.count(candidate.interval);
+            builder.append("\n  ").append(candidate.label).append(" count=").append(count);
+            for (int index = 0; index < QUANTILES.length; index += 1) {
+                builder.append(' ').append(SUFFIXES[index], 1, SUFFIXES[index].length()).append('=')
+                    .append(String.format("%.3fms", Histogram.percentile(candidate.interval, count, QUANTILES[index]) / 1e6));
+            }
+            System.arraycopy(candidate.current, 0, candidate.summarised, 0, Histogram.SIZE);
+        }
+        Logging.of(this).info(builder.toString());
+    }
+
+    @Override public void onClose() {
+        IoUtil.unmap(mappedByteBuffer);
+    }
+
+    private static class Gauge {
+        final String label;
+        final int id;
+        final LongSupplier supplier;
+
+        Gauge(final String label, final int id, final LongSupplier supplier) {
+            this.label = label;
+            this.id = id;
+            this.supplier = supplier;
+        }
+    }
+
+    private static class Recorded {
+        final String label;
+        final int[] ids;
+        final Histogram histogram;
+        final long[] current = new long[Histogram.SIZE];
+        final long[] previous = new long[Histogram.SIZE];
+        final long[] summarised = new long[Histogram.SIZE];
+        final long[] interval = new long[Histogram.SIZE];
+
+        Recorded(final String label, final int[] ids, final Histogram histogram) {
+            this.label = label;
+            this.ids = ids;
+            this.histogram = histogram;
+        }
+    }
+}
+
+class MetricsReader {
+    public static void main(final String[] arguments) throws Exception {
+        final File file = new File(arguments[0]);
+        final long period = arguments.length > 1 ? Long.parseLong(arguments[1]) : 1_000;
+        final MappedByteBuffer mappedByteBuffer = IoUtil.mapExistingFile(file, "metrics");
+        final int count = mappedByteBuffer.capacity() / (CountersReader.METADATA_LENGTH + CountersReader.COUNTER_LENGTH);
+        final CountersReader reader = new CountersReader(
+            new UnsafeBuffer(mappedByteBuffer, 0, count * CountersReader.METADATA_LENGTH),
+            new UnsafeBuffer(mappedByteBuffer, count * CountersReader.METADATA_LENGTH, count * CountersReader.COUNTER_LENGTH)
+        );
+        while (true) {
+            final StringBuilder builder = new StringBuilder();
+            reader.forEach((final int id, final int type, final DirectBuffer key, final String label) ->
+                builder.append(String.format("%4d %-48s %,16d%n", id, label, reader.getCounterValue(id)))
+            );
+            System.out.print(builder.append('\n'));
+            if (period <= 0) return;
+            Thread.sleep(period);
+        }
+    }
+}
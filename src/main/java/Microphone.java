@@ -0,0 +1,78 @@
+import javax.sound.sampled.*;
+
+class Microphone extends Producer {
+    public static final int MILLISECONDS_FRAME = 20;
+    private static final int FRAMES_COMFORT_NOISE = 8;
+
+    final long addressUDP;
+    final AudioFormat audioFormat;
+    final AudioSource source;
+    final AudioCodec.Encoder encoder;
+    final VoiceActivityDetector detector = new VoiceActivityDetector();
+    final byte[] bytes;
+    final short[] samples;
+    final int sizeEncoded;
+    long timeStart;
+    long samplesCaptured = 0;
+    int sequence = 0;
+    int framesSilent = 0;
+    volatile long countFrames = 0;
+    volatile long countSuppressed = 0;
+    
+    public Microphone(final AudioFormat audioFormat, final long addressUDP, final AudioCodec codec) throws LineUnavailableException {
+        this(audioFormat, addressUDP, codec, new LineSource(audioFormat));
+    }
+
+    public Microphone(final AudioFormat audioFormat, final long addressUDP, final AudioCodec codec, final AudioSource source) {
+        super(MILLISECONDS_FRAME / 4);
+        if (audioFormat.getSampleSizeInBits() != 16 || audioFormat.getChannels() != 1) throw new IllegalArgumentException(audioFormat.toString());
+        this.addressUDP = addressUDP;
+        this.audioFormat = audioFormat;
+        this.source = source;
+        encoder = codec.encoder();
+        samples = new short[(int) (audioFormat.getSampleRate() * MILLISECONDS_FRAME / 1000)];
+        bytes = new byte[samples.length * 2];
+        sizeEncoded = (samples.length * codec.bitsPerSample() + 7) / 8;
+        timeStart = System.nanoTime();
+        start();
+    }
+
+    public long countFrames() { return countFrames; }
+    public long countSuppressed() { return countSuppressed; }
+    
+    @Override protected int produce() {
+        int work = 0;
+        while (buffer.remaining() > 0 && source.available() >= bytes.length) {
+            final long time = timeStart + (long) (samplesCaptured * 1_000_000_000L / audioFormat.getSampleRate());
+            source.read(bytes, 0, bytes.length);
+            samplesCaptured += samples.length;
+            countFrames += 1;
+            work += 1;
+            for (int index = 0; index < samples.length; index += 1) {
+                final int high = audioFormat.isBigEndian() ? index * 2 : index * 2 + 1;
+                samples[index] = (short) (bytes[high] << 8 | bytes[high ^ 1] & 0xFF);
+            }
+            if (detector.active(samples, 0, samples.length)) {
+                framesSilent = 0;
+                final Packet packet = buffer.claim();
+                packet.allocate(Packet.SIZE_HEADER + sizeEncoded);
+                final int length = encoder.encode(samples, 0, samples.length, packet, Packet.SIZE_HEADER);
+                packet.setType(Packet.TYPE_AUDIO).setFlags(0).setLength(length).setAddressUDP(addressUDP).setTime(time).setSequence(sequence++);
+                buffer.commit();
+            } else if (framesSilent++ % FRAMES_COMFORT_NOISE == 0) {
+                final Packet packet = buffer.claim();
+                packet.allocate(Packet.SIZE_HEADER + 2);
+                packet.putShort(Packet.SIZE_HEADER, (short) Math.min(Short.MAX_VALUE, detector.levelNoise()));
+                packet.setType(Packet.TYPE_AUDIO).setFlags(Packet.FLAG_COMFORT_NOISE).setLength(2).setAddressUDP(addressUDP).setTime(time).setSequence(sequence++);
+                buffer.commit();
+            } else {
+                countSuppressed += 1;
+            }
+        }
+        return work;
+    }
+
+    @Override public void onClose() {
+        source.close();
+    }
+}
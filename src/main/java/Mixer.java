@@ -0,0 +1,10 @@
+import org.agrona.DirectBuffer;
+
+interface Mixer {
+    void write(final long addressUDP, final DirectBuffer buffer, final int offset, final int length, final long time, final long timeArrival);
+    void mix(final short[] output, final int offset, final int count);
+    void silence(final long addressUDP, final int level);
+    void setGain(final long addressUDP, final float gain);
+    void remove(final long addressUDP);
+    long timePlayout(final long addressUDP);
+}
@@ -0,0 +1,45 @@
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+class MuLawCodec implements AudioCodec {
+    private static final int BIAS = 0x84;
+    private static final int CLIP = 32635;
+    private static final short[] DECODED = new short[256];
+
+    static {
+        for (int code = 0; code < 256; code += 1) {
+            final int inverted = ~code & 0xFF;
+            final int exponent = (inverted >> 4) & 0x07;
+            final int magnitude = (((inverted & 0x0F) << 3) + BIAS << exponent) - BIAS;
+            DECODED[code] = (short) ((inverted & 0x80) != 0 ? -magnitude : magnitude);
+        }
+    }
+
+    public static byte encode(final short sample) {
+        int magnitude = sample;
+        final int sign = magnitude < 0 ? 0x80 : 0;
+        if (sign != 0) magnitude = -magnitude;
+        magnitude = Math.min(magnitude, CLIP) + BIAS;
+        final int exponent = 31 - Integer.numberOfLeadingZeros(magnitude >> 7 | 1);
+        final int mantissa = (magnitude >> (exponent + 3)) & 0x0F;
+        return (byte) ~(sign | exponent << 4 | mantissa);
+    }
+
+    public static short decode(final byte code) { return DECODED[code & 0xFF]; }
+
+    @Override public int bitsPerSample() { return 8; }
+
+    @Override public Encoder encoder() {
+        return (final short[] samples, final int offset, final int count, final MutableDirectBuffer buffer, final int index) -> {
+            for (int sample = 0; sample < count; sample += 1) buffer.putByte(index + sample, encode(samples[offset + sample]));
+            return count;
+        };
+    }
+
+    @Override public Decoder decoder() {
+        return (final DirectBuffer buffer, final int offset, final int length, final short[] samples, final int index) -> {
+            for (int sample = 0; sample < length; sample += 1) samples[index + sample] = decode(buffer.getByte(offset + sample));
+            return length;
+        };
+    }
+}
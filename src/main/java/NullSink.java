@@ -0,0 +1,32 @@
+import javax.sound.sampled.AudioFormat;
+
+class NullSink implements AudioSink {
+    private final float sampleRate;
+    private final boolean paced;
+    private long timeStart = 0;
+    private long samplesWritten = 0;
+    private long checksum = 0;
+
+    public NullSink(final AudioFormat audioFormat, final boolean paced) {
+        sampleRate = audioFormat.getSampleRate();
+        this.paced = paced;
+    }
+
+    @Override public int writable() {
+        if (!paced) return Integer.MAX_VALUE;
+        if (timeStart == 0) timeStart = System.nanoTime();
+        return (int) Math.max(0, (System.nanoTime() - timeStart) * (double) sampleRate / 1_000_000_000L - samplesWritten);
+    }
+
+    @Override public int buffered() { return 0; }
+
+    @Override public void write(final short[] samples, final int offset, final int count) {
+        for (int index = 0; index < count; index += 1) checksum += samples[offset + index];
+        samplesWritten += count;
+    }
+
+    @Override public void close() {}
+
+    public long samplesWritten() { return samplesWritten; }
+    public long checksum() { return checksum; }
+}
@@ -0,0 +1,35 @@
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.io.DirectBufferInputStream;
+import org.agrona.io.ExpandableDirectBufferOutputStream;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+class PNGCodec implements VideoCodec {
+    @Override public Encoder encoder(final int width, final int height) {
+        return new Encoder() {
+            final ExpandableDirectBufferOutputStream stream = new ExpandableDirectBufferOutputStream();
+
+            @Override public int encode(final BufferedImage image, final MutableDirectBuffer buffer) {
+                stream.wrap(buffer);
+                try { ImageIO.write(image, "png", stream); }
+                catch (IOException exception) { Logging.of(PNGCodec.class).warning(exception.toString()); return 0; }
+                return stream.position();
+            }
+
+            @Override public void requestKeyframe() {}
+            @Override public void setQuality(final int degradation) {}
+        };
+    }
+
+    @Override public boolean isKeyframe(final DirectBuffer buffer, final int offset, final int length) { return true; }
+
+    @Override public Decoder decoder() {
+        return (final DirectBuffer buffer, final int offset, final int length) -> {
+            try { return ImageIO.read(new DirectBufferInputStream(buffer, offset, length)); }
+            catch (IOException exception) { Logging.of(PNGCodec.class).warning(exception.toString()); return null; }
+        };
+    }
+}
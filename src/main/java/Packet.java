@@ -0,0 +1,72 @@
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+class Packet extends UnsafeBuffer {
+    public static final byte VERSION = 1;
+    public static final int OFFSET_VERSION = 0;
+    public static final int OFFSET_TYPE = 1;
+    public static final int OFFSET_LAYER = 2;
+    public static final int OFFSET_FLAGS = 3;
+    public static final int OFFSET_LENGTH = 4;
+    public static final int OFFSET_ADDRESS_UDP = 8;
+    public static final int OFFSET_TIME = 16;
+    public static final int OFFSET_SEQUENCE = 24;
+    public static final int SIZE_HEADER = 32;
+    
+    public static final byte TYPE_AUDIO      = (byte) 0b10000000;
+    public static final byte TYPE_VIDEO      = (byte) 0b01000000;
+    public static final byte TYPE_JOIN       = (byte) 0b00100000;
+    public static final byte TYPE_LEAVE      = (byte) 0b00010000;
+    public static final byte TYPE_SUBSCRIBE  = (byte) 0b00001000;
+    public static final byte TYPE_FEEDBACK   = (byte) 0b00000100;
+    public static final byte TYPE_CLOCK      = (byte) 0b00000010;
+    public static final byte TYPE_KEYFRAME   = (byte) 0b00000001;
+    
+    public static final byte FLAG_KEYFRAME   = (byte) 0b00000001;
+    public static final byte FLAG_COMFORT_NOISE = (byte) 0b00000010;
+    public static final byte FLAG_PARITY     = (byte) 0b00000100;
+    public static final byte FLAG_RECOVERED  = (byte) 0b00001000;
+    
+    public static Packet factory() { return new Packet(); };
+    
+    private static final int SHIFT_SHRINK = 2;
+    
+    private long chunkAddress = 0;
+    private int chunkCapacity = 0;
+    
+    public Packet allocate(final int capacity) {
+        if (capacity > chunkCapacity || Pool.sizeClass(capacity) < chunkCapacity >> SHIFT_SHRINK) {
+            final Pool pool = Pool.local();
+            if (chunkAddress != 0) pool.release(chunkAddress, chunkCapacity);
+            chunkCapacity = Pool.sizeClass(capacity);
+            chunkAddress = pool.acquire(chunkCapacity);
+        }
+        wrap(chunkAddress, capacity);
+        return this;
+    }
+    
+    public static boolean valid(final DirectBuffer buffer, final int offset, final int length) {
+        if (length < SIZE_HEADER || buffer.getByte(offset + OFFSET_VERSION) != VERSION) return false;
+        final int lengthPayload = buffer.getInt(offset + OFFSET_LENGTH);
+        return 0 <= lengthPayload && lengthPayload <= length - SIZE_HEADER;
+    }
+    
+    public int size() { return SIZE_HEADER + length(); }
+    
+    public byte version() { return getByte(OFFSET_VERSION); }
+    public byte type() { return getByte(OFFSET_TYPE); }
+    public byte layer() { return getByte(OFFSET_LAYER); }
+    public byte flags() { return getByte(OFFSET_FLAGS); }
+    public int length() { return getInt(OFFSET_LENGTH); }
+    public long addressUDP() { return getLong(OFFSET_ADDRESS_UDP); }
+    public long time() { return getLong(OFFSET_TIME); }
+    public int sequence() { return getInt(OFFSET_SEQUENCE); }
+    
+    public Packet setType(final byte type) { putByte(OFFSET_VERSION, VERSION); putByte(OFFSET_TYPE, type); return this; }
+    public Packet setLayer(final int layer) { putByte(OFFSET_LAYER, (byte) layer); return this; }
+    public Packet setFlags(final int flags) { putByte(OFFSET_FLAGS, (byte) flags); return this; }
+    public Packet setLength(final int length) { putInt(OFFSET_LENGTH, length); return this; }
+    public Packet setAddressUDP(final long addressUDP) { putLong(OFFSET_ADDRESS_UDP, addressUDP); return this; }
+    public Packet setTime(final long time) { putLong(OFFSET_TIME, time); return this; }
+    public Packet setSequence(final int sequence) { putInt(OFFSET_SEQUENCE, sequence); return this; }
+}
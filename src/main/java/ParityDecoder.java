@@ -0,0 +1,58 @@
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+class ParityDecoder {
+    private static final int SIZE_HISTORY = 32;
+    private static final int SIZE_SLOT = 1 << 10;
+
+    private final UnsafeBuffer slots = new UnsafeBuffer(new byte[SIZE_HISTORY * SIZE_SLOT]);
+    private final int[] sequences = new int[SIZE_HISTORY];
+    private final int[] sizes = new int[SIZE_HISTORY];
+    private final UnsafeBuffer scratch = new UnsafeBuffer(new byte[SIZE_SLOT]);
+    private final Packet recovered = new Packet();
+
+    public void add(final DirectBuffer buffer, final int offset, final int size, final int sequence) {
+        final int slot = sequence & (SIZE_HISTORY - 1);
+        if (size > SIZE_SLOT) {
+            sizes[slot] = 0;
+            return;
+        }
+        slots.putBytes(slot * SIZE_SLOT, buffer, offset, size);
+        sequences[slot] = sequence;
+        sizes[slot] = size;
+    }
+
+    private boolean present(final int sequence) {
+        final int slot = sequence & (SIZE_HISTORY - 1);
+        return sizes[slot] > 0 && sequences[slot] == sequence;
+    }
+
+    public Packet recover(final DirectBuffer buffer, final int offset, final int length) {
+        final int sequenceFirst = buffer.getInt(offset + Packet.OFFSET_SEQUENCE);
+        final int count = buffer.getInt(offset + ParityEncoder.OFFSET_COUNT);
+        final int sizeParity = length - ParityEncoder.OFFSET_PARITY;
+        if (count <= 0 || count > SIZE_HISTORY || sizeParity <= 0 || sizeParity > SIZE_SLOT) return null;
+        int missing = 0;
+        int countMissing = 0;
+        for (int sequence = sequenceFirst; sequence != sequenceFirst + count; sequence += 1) {
+            if (present(sequence)) continue;
+            missing = sequence;
+            countMissing += 1;
+        }
+        if (countMissing != 1) return null;
+
+        scratch.putBytes(0, buffer, offset + ParityEncoder.OFFSET_PARITY, sizeParity);
+        for (int sequence = sequenceFirst; sequence != sequenceFirst + count; sequence += 1) {
+            if (sequence == missing) continue;
+            final int slot = sequence & (SIZE_HISTORY - 1);
+            ParityEncoder.xor(scratch, slots, slot * SIZE_SLOT, Math.min(sizes[slot], sizeParity));
+        }
+        if (!Packet.valid(scratch, 0, sizeParity)) return null;
+        recovered.wrap(scratch, 0, sizeParity);
+        if (recovered.sequence() != missing) return null;
+        recovered.wrap(scratch, 0, recovered.size());
+        recovered.setFlags(recovered.flags() | Packet.FLAG_RECOVERED);
+        add(recovered, 0, recovered.size(), missing);
+        return recovered;
+    }
+}
@@ -0,0 +1,76 @@
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.MutableDirectBuffer;
+
+class ParityEncoder {
+    public static final int OFFSET_COUNT = Packet.SIZE_HEADER;
+    public static final int OFFSET_PARITY = Packet.SIZE_HEADER + 4;
+    public static final int GROUP_MINIMUM = 2;
+    public static final int GROUP_MAXIMUM = 4;
+
+    private static final float LOSS_MINIMUM = 0.005f;
+    private static final float LOSS_PER_GROUP = 0.2f;
+    private static final float DECAY_LOSS = 0.95f;
+
+    private final ExpandableDirectByteBuffer accumulator = new ExpandableDirectByteBuffer(1 << 10);
+    private final Packet parity = new Packet();
+    private volatile int sizeGroup = 0;
+    private float loss = 0;
+    private int count = 0;
+    private int sequenceFirst = 0;
+    private int sizeMaximum = 0;
+
+    ParityEncoder() {
+        parity.allocate(OFFSET_PARITY + accumulator.capacity());
+    }
+
+    public static int sizeGroup(final float loss) {
+        if (loss < LOSS_MINIMUM) return 0;
+        return Math.max(GROUP_MINIMUM, Math.min(GROUP_MAXIMUM, (int) (LOSS_PER_GROUP / loss)));
+    }
+
+    static void xor(final MutableDirectBuffer target, final DirectBuffer source, final int offset, final int length) {
+        int index = 0;
+        for (; index + 8 <= length; index += 8) target.putLong(index, target.getLong(index) ^ source.getLong(offset + index));
+        for (; index < length; index += 1) target.putByte(index, (byte) (target.getByte(index) ^ source.getByte(offset + index)));
+    }
+
+    public int sizeGroup() { return sizeGroup; }
+
+    public void setSizeGroup(final int sizeGroup) { this.sizeGroup = sizeGroup; }
+
+    public synchronized void reportLoss(final float loss) {
+        this.loss = Math.max(loss, this.loss * DECAY_LOSS);
+        sizeGroup = sizeGroup(this.loss);
+    }
+
+    public Packet add(final Packet packet) {
+        final int sizeGroup = this.sizeGroup;
+        if (count > 0 && (sizeGroup == 0 || packet.sequence() != sequenceFirst + count)) reset();
+        if (sizeGroup == 0) return null;
+        final int size = packet.size();
+        accumulator.checkLimit(size);
+        if (size > sizeMaximum) {
+            accumulator.setMemory(sizeMaximum, size - sizeMaximum, (byte) 0);
+            sizeMaximum = size;
+        }
+        if (count == 0) sequenceFirst = packet.sequence();
+        xor(accumulator, packet, 0, size);
+        count += 1;
+        if (count < sizeGroup) return null;
+
+        parity.allocate(OFFSET_PARITY + sizeMaximum);
+        parity.putInt(OFFSET_COUNT, count);
+        parity.putBytes(OFFSET_PARITY, accumulator, 0, sizeMaximum);
+        parity.setType(packet.type()).setLayer(packet.layer()).setFlags(Packet.FLAG_PARITY).setLength(4 + sizeMaximum)
+            .setAddressUDP(packet.addressUDP()).setTime(packet.time()).setSequence(sequenceFirst);
+        reset();
+        return parity;
+    }
+
+    private void reset() {
+        accumulator.setMemory(0, sizeMaximum, (byte) 0);
+        sizeMaximum = 0;
+        count = 0;
+    }
+}
@@ -1,88 +1,17 @@
 import io.aeron.Aeron;
-import io.aeron.FragmentAssembler;
-import io.aeron.Publication;
-import io.aeron.Subscription;
 import io.aeron.driver.MediaDriver;
-import io.aeron.logbuffer.Header;
-import org.agrona.BitUtil;
-import org.agrona.DirectBuffer;
-import org.agrona.collections.Long2ObjectHashMap;
-import org.agrona.concurrent.UnsafeBuffer;
-import org.agrona.io.DirectBufferInputStream;
-import org.apache.commons.math3.analysis.function.Add;
-import org.openimaj.image.ImageUtilities;
-import org.openimaj.video.capture.VideoCapture;
-import org.openimaj.video.capture.VideoCaptureException;
-
-import javax.imageio.ImageIO;
+import io.aeron.driver.ext.DebugReceiveChannelEndpoint;
+import io.aeron.driver.ext.RandomLossGenerator;
+
 import javax.sound.sampled.*;
-import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.image.BufferedImage;
 import java.io.*;
-import java.net.*;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.logging.*;
-import java.util.regex.Pattern;
-
-class Addressing {
-    public static String longToString(long input) {
-        return longToHost(input) + ':' + String.valueOf(longToPort(input));
-    }
-    
-    public static InetSocketAddress longToInetSocketAddress(long input) {
-        return new InetSocketAddress(longToHost(input), longToPort(input));
-    }
-    
-    public static long stringToLong(final String input) {
-        long output = 0;
-        for (String octet : input.substring(0, input.indexOf(':')).split(Pattern.quote("."))) {
-            output = output << 8 | Integer.parseInt(octet);
-        }
-        return output << 16 | Short.parseShort(input.substring(input.indexOf(':') + 1));
-    }
-
-    public static String longToHost(long input) {
-        final StringBuilder builder = new StringBuilder();
-        input >>= 16;
-        for (int index = 0; index < 4; index += 1) {
-            builder.insert(0, input & 0b11111111);
-            if (index != 3) {
-                builder.insert(0, '.');
-                input >>= 8;
-            }
-        }
-        return builder.toString();
-    }
-
-    public static short longToPort(final long input) {
-        return (short) input;
-    }
-}
-
-class Logging {
-    private static ConcurrentHashMap<String, Logger> nameToLogger = new ConcurrentHashMap<>();
-    
-    public static Logger of(final Object object) {
-        return of(object.getClass());
-    }
-    
-    public static Logger of(final Class clazz) {
-        if (nameToLogger.size() == 0) System.setProperty("java.util.logging.SimpleFormatter.format", "%1$tF %1$tT %4$s %2$s %5$s%6$s%n");
-
-        if (!nameToLogger.containsKey(clazz.getName())) {
-            final Logger logger = Logger.getLogger(clazz.getName());
-            logger.setLevel(Level.ALL);
-            nameToLogger.put(clazz.getName(), logger);
-        }
-        return nameToLogger.get(clazz.getName());
-    }
-}
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 class Streaming {
     public static void writeLong(final OutputStream stream, long input) throws IOException {
@@ -102,317 +31,6 @@ class Streaming {
     }
 }
 
-class Packet extends UnsafeBuffer {
-    public static final int SIZE_METADATA = BitUtil.align(1 + 4 + 8 + 8, 8);
-    
-    public static final byte TYPE_AUDIO      = (byte) 0b100000000;
-    public static final byte TYPE_VIDEO      = (byte) 0b010000000;
-    public static final byte TYPE_JOIN       = (byte) 0b001000000;
-    public static final byte TYPE_LEAVE      = (byte) 0b000100000;
-    
-    public static Packet factory() { return new Packet(); };
-    
-    public byte type() { return getByte(capacity() - SIZE_METADATA); }
-    public int length() { return getInt(capacity() - SIZE_METADATA + 1); }
-    public long addressUDP() { return getLong(capacity() - SIZE_METADATA + 1 + 4); }
-    public long time() { return getLong(capacity() - SIZE_METADATA + 1 + 4 + 8 + 2); }
-    
-    public Packet setType(final byte type) { putByte(capacity() - SIZE_METADATA, type); return this; }
-    public Packet setLength(final int length) { putInt(capacity() - SIZE_METADATA + 1, length); return this; }
-    public Packet setAddressUDP(final long addressUDP) { putLong(capacity() - SIZE_METADATA + 1 + 4, addressUDP); return this; }
-    public Packet setTime(final long time) { putLong(capacity() - SIZE_METADATA + 1 + 4 + 8 + 2, time); return this; }
-}
-
-class Tuple<A, B> { A first; B second; public Tuple(A a, B b) { first = a; second = b; }}
-
-class RingBuffer<T> {
-    private final T[] array;
-    private final AtomicInteger ticketNext = new AtomicInteger(0);
-    private final int mask;
-    private final int size;
-
-    private final AtomicInteger producerIndex = new AtomicInteger(0);
-    private final Map<Integer, AtomicInteger> consumerTicketToIndex = new ConcurrentHashMap<>();
-
-    @SuppressWarnings("unchecked")
-    protected RingBuffer(final Factory<T> factory, final int size) {
-        array = (T[]) new Object[size];
-        mask = size - 1;
-        this.size = size;
-        for (int index = 0; index < size; index += 1) array[index] = factory.factory();
-    }
-
-    private int consumersMinimumIndex() {
-        int index = Integer.MAX_VALUE;
-        for (AtomicInteger atomicInteger : consumerTicketToIndex.values()) index = Math.min(index, atomicInteger.get());
-        return index;
-    }
-
-    public T claim() {
-        while (producerIndex.get() == consumersMinimumIndex() + size);
-        return array[producerIndex.get() & mask];
-    }
-
-    public void commit() {
-        producerIndex.incrementAndGet();
-    }
-
-    public T acquire(final int ticket) {
-        if (consumerTicketToIndex.get(ticket).get() == producerIndex.get()) return null;
-        return array[consumerTicketToIndex.get(ticket).get() & mask];
-    }
-
-    public void release(final int ticket) {
-        consumerTicketToIndex.get(ticket).incrementAndGet();
-    }
-
-    public int subscribe() {
-        int ticket = ticketNext.getAndIncrement();
-        consumerTicketToIndex.put(ticket, new AtomicInteger(Math.max(0, producerIndex.get() - size)));
-        return ticket;
-    }
-
-    public interface Factory<T> { T factory(); }
-}
-
-abstract class Daemon {
-    private final Timer timer;
-    private final Thread thread;
-    
-    Daemon(final int delay) {
-        if (delay > 0) {
-            timer = new Timer(delay, (ActionEvent actionEvent) -> run());
-            thread = null;
-            return;
-        }
-        timer = null;
-        thread = new Thread(() -> { while (true) run(); });
-    }
-
-    protected void start() {
-        if (timer != null) {
-            timer.start();
-            return;
-        }
-        thread.start();
-    }
-
-    protected void stop() {
-        if (timer != null) {
-            timer.stop();
-            return;
-        }
-        thread.stop();
-    };
-    
-    abstract protected void run();
-}
-
-abstract class Producer extends Daemon {
-    public final RingBuffer<Packet> buffer;
-    
-    Producer(final int delay) {
-        super(delay);
-        buffer = new RingBuffer<>(Packet::factory, 64);
-    }
-    
-    @Override protected void run() { produce(); }
-    
-    protected abstract void produce();
-}
-
-abstract class Consumer extends Daemon {
-    private final Set<Tuple<RingBuffer<Packet>, Integer>> tuplesBufferTicket = ConcurrentHashMap.newKeySet();
-    private final byte mask;
-
-    Consumer(final int delay, final byte mask) {
-        super(delay);
-        this.mask = mask;
-    }
-
-    public void subscribe(final Producer producer) {
-        tuplesBufferTicket.add(new Tuple<RingBuffer<Packet>, Integer>(producer.buffer, producer.buffer.subscribe()));
-    }
-    
-    public void subscribe(final RingBuffer<Packet> buffer) {
-        tuplesBufferTicket.add(new Tuple<RingBuffer<Packet>, Integer>(buffer, buffer.subscribe()));
-    }
-    
-    @Override protected void run() {
-        Packet packet;
-        for (final Tuple<RingBuffer<Packet>, Integer> tuple : tuplesBufferTicket) {
-            packet = tuple.first.acquire(tuple.second);
-            if (packet != null) {
-                if ((packet.type() & mask) != 0) consume(packet);
-                tuple.first.release(tuple.second);
-            }
-        }
-    }
-
-    protected abstract void consume(final Packet packet);
-}
-
-class Camera extends Producer {
-    final long addressUDP;
-    final byte[] bytesPadding = new byte[7 + Packet.SIZE_METADATA];
-    final Dimension dimension;
-    final VideoCapture videoCapture;
-    
-    public Camera(final Dimension dimension, final int framesPerSecond, final long addressUDP) throws VideoCaptureException {
-        super(1000 / framesPerSecond);
-        this.addressUDP = addressUDP;
-        this.dimension = dimension;
-        videoCapture = new VideoCapture((int) dimension.getWidth(), (int) dimension.getHeight());
-        start();
-    }
-
-    @Override protected void produce() {
-        final long time = System.nanoTime();
-        final BufferedImage bufferedImage;
-        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        final Packet packet = buffer.claim();
-        
-        bufferedImage = new BufferedImage((int) dimension.getWidth(), (int) dimension.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        ImageUtilities.createBufferedImage(videoCapture.getNextFrame(), bufferedImage);
-        try { ImageIO.write(bufferedImage, "png", stream); }
-        catch (Exception exception) { Logging.of(this).warning(exception.toString()); return; }
-        stream.write(bytesPadding, 0, BitUtil.align(stream.size(), 8) - stream.size() + Packet.SIZE_METADATA);
-        
-        packet.wrap(stream.toByteArray());
-        packet.setType(Packet.TYPE_VIDEO).setLength(packet.capacity()).setAddressUDP(addressUDP).setTime(time);
-        buffer.commit();
-    }
-}
-
-class Microphone extends Producer {
-    final long addressUDP;
-    final TargetDataLine targetDataLine;
-    
-    public Microphone(final AudioFormat audioFormat, final int framesPerSecond, final long addressUDP) throws LineUnavailableException {
-        super(1000 / framesPerSecond);
-        this.addressUDP = addressUDP;
-        targetDataLine = (TargetDataLine) AudioSystem.getLine(new DataLine.Info(TargetDataLine.class, audioFormat));
-        targetDataLine.open(audioFormat);
-        targetDataLine.start();
-        start();
-    }
-    
-    @Override protected void produce() {
-        final long time = System.nanoTime();
-        final Packet packet = buffer.claim();
-        final int length = targetDataLine.available();
-        
-        packet.wrap(new byte[BitUtil.align(length, 8) + Packet.SIZE_METADATA]);
-        packet.setType(Packet.TYPE_AUDIO).setLength(length).setAddressUDP(addressUDP).setTime(time);
-        targetDataLine.read(packet.byteArray(), 0, length);
-        buffer.commit();
-    }
-}
-
-class Speaker extends Consumer {
-    private final AudioFormat audioFormat;
-    private final Long2ObjectHashMap<Tuple<RingBuffer<Packet>, Line>> addressUDPToBufferAndLine = new Long2ObjectHashMap<>();
-    
-    public Speaker(final AudioFormat audioFormat) {
-        super(0, Packet.TYPE_AUDIO);
-        this.audioFormat = audioFormat;
-        start();
-    }
-    
-    @Override protected void consume(final Packet packet) {
-        final byte[] bytes = new byte[packet.capacity()];
-        final long address = packet.addressUDP();
-        RingBuffer<Packet> buffer;
-        
-        if (!addressUDPToBufferAndLine.containsKey(address)) {
-            final Line line;
-            try { line = new Line(); } catch (LineUnavailableException exception) { exception.printStackTrace(); return; }
-            buffer = new RingBuffer<>(Packet::factory, 4);
-            line.subscribe(buffer);
-            addressUDPToBufferAndLine.put(address, new Tuple<>(buffer, line));
-        }
-        
-        packet.getBytes(0, bytes);
-        buffer = addressUDPToBufferAndLine.get(address).first;
-        buffer.claim().wrap(bytes);
-        buffer.commit();
-    }
-
-    public void removeAddressUDP(final long addressUDP) {
-        if (addressUDPToBufferAndLine.containsKey(addressUDP)) {
-            final Tuple<RingBuffer<Packet>, Line> tuple = addressUDPToBufferAndLine.get(addressUDP);
-            tuple.second.stop();
-            addressUDPToBufferAndLine.remove(addressUDP);
-        }
-    }
-
-    private class Line extends Consumer {
-        private final SourceDataLine line;
-
-        Line() throws LineUnavailableException {
-            super(0, Packet.TYPE_AUDIO);
-            line = (SourceDataLine) AudioSystem.getLine(new DataLine.Info(SourceDataLine.class, audioFormat));
-            line.open(audioFormat);
-            line.start();
-            start();
-        }
-        
-        @Override protected void consume(final Packet packet) {
-            line.write(packet.byteArray(), 0, packet.length());
-        }
-        
-        @Override protected void stop() {
-            super.stop();
-            line.stop();
-        }
-    }
-}
-
-class Window extends Consumer {
-    private final Dimension dimension;
-    private final JFrame jFrame = new JFrame();
-    private final Long2ObjectHashMap<JLabel> addressUDPToJLabel = new Long2ObjectHashMap<>();
-
-    public Window(final Dimension dimension, final long addressUDP) {
-        super(0, Packet.TYPE_VIDEO);
-        this.dimension = dimension;
-        jFrame.setLayout(new GridLayout(1, 1));
-        jFrame.setTitle(Addressing.longToString(addressUDP));
-        jFrame.setVisible(true);
-        start();
-    }
-
-    @Override protected void consume(final Packet packet) {
-        final BufferedImage bufferedImage;
-        try { bufferedImage = ImageIO.read(new DirectBufferInputStream(packet, 0, packet.length())); }
-        catch (IOException exception) { Logging.of(this).warning(exception.toString()); return; }
-        if (bufferedImage == null) { Logging.of(this).warning("bufferedImage == null"); return; }
-        
-        final long address = packet.addressUDP();
-        if (!addressUDPToJLabel.containsKey(address)) {
-            addressUDPToJLabel.put(address, new JLabel());
-            addressUDPToJLabel.get(address).setIcon(new ImageIcon());
-            jFrame.getContentPane().add(addressUDPToJLabel.get(address));
-        }
-        ((ImageIcon) addressUDPToJLabel.get(address).getIcon()).setImage(bufferedImage);
-        repaint();
-    }
-
-    public void removeAddressUDP(final long addressUDP) {
-        if (addressUDPToJLabel.containsKey(addressUDP)) {
-            jFrame.getContentPane().remove(addressUDPToJLabel.get(addressUDP));
-            addressUDPToJLabel.remove(addressUDP);
-            repaint();
-        }
-    }
-    
-    private void repaint() {
-        jFrame.setSize((int) dimension.getWidth() * addressUDPToJLabel.size(), (int) dimension.getHeight());
-        jFrame.revalidate();
-        jFrame.repaint();
-    }
-}
-
 class Call {
     public final ConcurrentHashMap<Long, Long> addressUDPtoAddressTCP = new ConcurrentHashMap<>();
     public final long addressUDPHost;
@@ -425,127 +43,24 @@ class Call {
         addressUDPtoAddressTCP.put(addressUDP, addressTCP);
     }
 
-    public void removeAddressPair(final long addressUDP) {
-        // addressUDPtoAddressTCP.remove(addressUDP);
-    }
-}
-
-class TCP {
-    public static void multicast(final Collection<Long> addressTCPs, final Packet packet) throws IOException {
-        for (final long addressTCP : addressTCPs) unicast(addressTCP, packet);
-    }
-    
-    public static byte[] unicast(final long addressTCP, final Packet packet) throws IOException {
-        Logging.of(TCP.class).info("addressTCP=" + Addressing.longToPort(addressTCP));
-        final Socket socket = new Socket(Addressing.longToHost(addressTCP), Addressing.longToPort(addressTCP));
-        final OutputStream outputStream = socket.getOutputStream();
-        outputStream.write(packet.byteArray());
-        outputStream.write('\n');
-        
-        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        byte[] bytes;
-        try {
-            bytes = reader.readLine().getBytes();
-        } catch (Exception exception) {
-            bytes = null;
-        }
-        socket.close();
-        return bytes;
-    }
-    
-    static class Server {
-        final Handler handler;
-        final ServerSocket serverSocket;
-
-        public Server(long addressTCP, Handler handler) throws IOException {
-            this.handler = handler;
-            serverSocket = new ServerSocket();
-            serverSocket.bind(Addressing.longToInetSocketAddress(addressTCP));
-            Logging.of(this).info("addressTCP=" + Addressing.longToPort(addressTCP));
-            new Thread(() -> {
-                while (true) {
-                    try {
-                        final Packet packet = new Packet();
-                        final Socket socket = serverSocket.accept();
-                        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                        packet.wrap(reader.readLine().getBytes());
-                        handler.handle(socket, packet);
-                    } catch (Exception exception) {
-                        Logging.of(TCP.Server.class).warning(exception.toString());
-                    }
-                }
-            }).start();
-        }
-    }
-
-    public interface Handler { void handle(final Socket socket, final Packet packet) throws IOException; }
-}
-
-class UDP {
-    static class Broadcaster extends Consumer {
-        private final long addressUDP;
-        private final Publication publication;
-
-        public Broadcaster(final Aeron aeron, final long addressUDP) {
-            super(0, (byte) 0b11000000);
-            this.addressUDP = addressUDP;
-            publication = aeron.addPublication("aeron:udp?control-mode=manual", 1);
-            start();
-        }
-
-        public void addAddressUDP(final long addressUDP) {
-            Logging.of(this).info(
-                "this.addressUDP=" + Addressing.longToPort(this.addressUDP)
-                + " addressUDP=" + Addressing.longToPort(addressUDP)
-            );
-            publication.addDestination("aeron:udp?endpoint=" + Addressing.longToString(addressUDP));
-        }
-
-        @Override protected void consume(final Packet packet) {
-            final long outcome = publication.offer(packet);
-            // if (outcome < -1) Logging.SENDER.log(Level.WARNING, "publication.offer() = {0}", outcome);
-        }
-    }
-
-    static class Receiver extends Producer {
-        private final Aeron aeron;
-        private final long address;
-        private final FragmentAssembler fragmentAssembler;
-        private Subscription subscription;
-
-        public Receiver(final Aeron aeron, final long address) {
-            super(0);
-            this.aeron = aeron;
-            this.address = address;
-            fragmentAssembler = new FragmentAssembler(this::receive, 0, true);
-            subscription = aeron.addSubscription("aeron:udp?endpoint=" + Addressing.longToString(address), 1);
-            start();
-        }
-
-        @Override protected void produce() {
-            subscription.poll(fragmentAssembler, 100);
-            if (subscription.hasNoImages()) reconnect();
-        }
-
-        private void receive(final DirectBuffer buffer, final int offset, final int length, final Header header) {
-            final Packet packet = this.buffer.claim();
-            packet.wrap(new byte[length]);
-            buffer.getBytes(offset, packet, 0, length);
-            this.buffer.commit();
-        };
-
-        private void reconnect() {
-            subscription.close();
-            subscription = aeron.addSubscription("aeron:udp?endpoint=" + Addressing.longToString(address), 1);
-            try { Thread.sleep(1000); } catch (Exception exception) { exception.printStackTrace(); }
-        }
+    public boolean removeAddressPair(final long addressUDP) {
+        return addressUDPtoAddressTCP.remove(addressUDP) != null;
     }
 }
 
 public class Participant {
-    private static final MediaDriver mediaDriver = MediaDriver.launchEmbedded();
-    private Call call;
-    private final TCP.Server server;
+    private static final MediaDriver mediaDriver = MediaDriver.launchEmbedded(driverContext());
+    private static final boolean RELIABLE_AUDIO = Boolean.parseBoolean(System.getProperty("conference.reliable", "true"));
+    private static final long MILLISECONDS_TIMEOUT = 5_000;
+    private volatile Call call;
+    private long addressTCPRelay = 0;
+    private int callRelay = 0;
+    private byte media = (byte) (Packet.TYPE_AUDIO | Packet.TYPE_VIDEO);
+    private int layers = 1;
+    private long[] addressUDPSenders = new long[0];
+    private final TCP.Node node;
+    private final Packet request = new Packet();
+    private final Packet replyJoin = new Packet();
 
     private final long addressTCP;
     private final long addressUDP;
@@ -556,120 +71,297 @@ public class Participant {
     private final UDP.Receiver receiver;
     private final Speaker speaker;
     private final Window window;
+    private final FeedbackReporter feedbackReporter;
+    private final ClockSynchronizer clockSynchronizer;
+    private final Membership membership;
+    private final RateController rateController = new RateController(100_000L, 4_000_000L);
+    private final long bitrateAudio;
+    private final List<String> labelsMetrics = new ArrayList<>();
+    private final Map<String, Histogram> nameToHistogram = new ConcurrentHashMap<>();
+    private Recorder recorder;
 
     public Participant(final long addressTCP, final long addressUDP) throws Exception {
+        this(addressTCP, addressUDP, false);
+    }
+
+    public Participant(final long addressTCP, final long addressUDP, final boolean synthetic) throws Exception {
         this.addressTCP = addressTCP;
         this.addressUDP = addressUDP;
-        server = new TCP.Server(addressTCP, this::handle);
+        node = new TCP.Node(addressTCP, this::handle);
 
-        Aeron.Context context = new Aeron.Context();
-        context.aeronDirectoryName(mediaDriver.aeronDirectoryName());
-        final Aeron aeron = Aeron.connect(context);
+        final Aeron aeron = connect();
         final AudioFormat audioFormat = new AudioFormat(8000.0f, 16, 1, true, true);
         final Dimension dimension = new Dimension(320, 240);
         final int framesPerSecond = 30;
-
-        broadcaster = new UDP.Broadcaster(aeron, addressUDP);
-        speaker = new Speaker(audioFormat);
-        window = new Window(dimension, addressUDP);
-        camera = new Camera(dimension, framesPerSecond, addressUDP);
-        microphone = new Microphone(audioFormat, framesPerSecond, addressUDP);
-        receiver = new UDP.Receiver(aeron, addressUDP);
+        final VideoCodec videoCodec = new TileCodec();
+        final AudioCodec audioCodec = new MuLawCodec();
+        bitrateAudio = (long) (audioFormat.getSampleRate() * audioCodec.bitsPerSample() * audioFormat.getChannels());
+
+        clockSynchronizer = new ClockSynchronizer(addressUDP, this::route);
+        if (synthetic) {
+            final VideoSource videoSource = new SyntheticVideo((int) dimension.getWidth(), (int) dimension.getHeight(), 2);
+            camera = new Camera(dimension, framesPerSecond, addressUDP, videoCodec, LayeredEncoder.LAYERS, videoSource);
+            speaker = new Speaker(audioFormat, audioCodec, new NullSink(audioFormat, true), clockSynchronizer);
+            window = new Window(dimension, addressUDP, videoCodec, clockSynchronizer, speaker::timePlayout, this::route, true);
+            microphone = new Microphone(
+                audioFormat, addressUDP, audioCodec, new ToneSource(audioFormat, 200 + Addressing.longToPort(addressUDP) % 40 * 20, 2_000, 1_000)
+            );
+        } else {
+            camera = new Camera(dimension, framesPerSecond, addressUDP, videoCodec);
+            speaker = new Speaker(audioFormat, audioCodec, clockSynchronizer);
+            window = new Window(dimension, addressUDP, videoCodec, clockSynchronizer, speaker::timePlayout, this::route);
+            microphone = new Microphone(audioFormat, addressUDP, audioCodec);
+        }
+        broadcaster = new UDP.Broadcaster(aeron, addressUDP, camera::requestKeyframe);
+        camera.setLayersActive(broadcaster::layersConnected);
+        receiver = new UDP.Receiver(aeron, addressUDP, 1, RELIABLE_AUDIO);
+        feedbackReporter = new FeedbackReporter(addressUDP, this::route);
 
         broadcaster.subscribe(camera);
         broadcaster.subscribe(microphone);
         speaker.subscribe(receiver);
         window.subscribe(camera);
         window.subscribe(receiver);
+        feedbackReporter.subscribe(receiver);
+        clockSynchronizer.subscribe(receiver);
+        membership = new Membership(addressTCP, addressUDP, this::onMemberAlive, this::onMemberDead);
+        registerMetrics();
+    }
+
+    private void registerMetrics() {
+        histogram("camera.capture", camera.histogramCapture);
+        histogram("camera.interval", camera.capturer.histogramInterval);
+        histogram("camera.queue", camera.histogramQueue);
+        histogram("camera.encode", camera.histogramEncode);
+        gauge("camera.captured", camera::countCaptured);
+        gauge("camera.dropped", camera::countDropped);
+        histogram("window.decode", window.decodePool.histogramDecode);
+        histogram("window.latency", window.histogramLatency);
+        histogram("window.skew", window.histogramSkew);
+        histogram("window.composite", window.compositor.histogramComposite);
+        histogram("window.present", window.compositor.histogramInterval);
+        gauge("window.presented", window.compositor::countPresented);
+        gauge("window.skipped", window.compositor::countSkipped);
+        histogram("speaker.latency", speaker.histogramLatency);
+        for (final Producer producer : new Producer[] { camera, microphone, receiver }) {
+            final String name = producer.getClass().getSimpleName().toLowerCase();
+            gauge(name + ".occupancy", producer.buffer::occupancy);
+            gauge(name + ".overruns", producer.buffer::overruns);
+        }
+        for (final Consumer consumer : new Consumer[] { broadcaster, speaker, window, feedbackReporter, clockSynchronizer }) {
+            gauge(consumer.getClass().getSimpleName().toLowerCase() + ".lag", consumer::lag);
+        }
+        for (final UDP.Broadcaster.Outcome outcome : UDP.Broadcaster.Outcome.values()) {
+            gauge("broadcaster." + outcome.name().toLowerCase(), () -> broadcaster.count(outcome));
+        }
+        gauge("microphone.frames", microphone::countFrames);
+        gauge("microphone.suppressed", microphone::countSuppressed);
+        gauge("receiver.images", receiver::countImages);
+        gauge("receiver.recovered", receiver::countRecovered);
+        gauge("receiver.overrun", receiver::countOverrun);
+        gauge("broadcaster.group", broadcaster::sizeGroupAudio);
+        gauge("membership.alive", () -> membership.count(Membership.STATUS_ALIVE));
+        gauge("membership.suspect", () -> membership.count(Membership.STATUS_SUSPECT));
+    }
+
+    private void gauge(final String name, final LongSupplier supplier) {
+        final String label = Addressing.longToPort(addressUDP) + " " + name;
+        Metrics.SHARED.gauge(label, supplier);
+        labelsMetrics.add(label);
+    }
+
+    private void histogram(final String name, final Histogram histogram) {
+        nameToHistogram.put(name, histogram);
+        final String label = Addressing.longToPort(addressUDP) + " " + name;
+        Metrics.SHARED.histogram(label, histogram);
+        labelsMetrics.add(label);
     }
     
+    public long addressTCP() { return addressTCP; }
+    public long addressUDP() { return addressUDP; }
+    public Histogram histogram(final String name) { return nameToHistogram.get(name); }
+    public long countSent() { return broadcaster.count(UDP.Broadcaster.Outcome.SENT); }
+    public long countReceived() { return receiver.countReceived(); }
+    public long bytesReceived() { return receiver.bytesReceived(); }
+    public long countRecovered() { return receiver.countRecovered(); }
+
+    private static MediaDriver.Context driverContext() {
+        final MediaDriver.Context context = new MediaDriver.Context();
+        final double loss = Double.parseDouble(System.getProperty("conference.loss", "0"));
+        if (loss > 0) {
+            context.receiveChannelEndpointSupplier((channel, dispatcher, status, contextDriver) -> new DebugReceiveChannelEndpoint(
+                channel, dispatcher, status, contextDriver, new RandomLossGenerator(loss), (address, buffer, length) -> false
+            ));
+        }
+        return context;
+    }
+
+    public static Aeron connect() {
+        final Aeron.Context context = new Aeron.Context();
+        context.aeronDirectoryName(mediaDriver.aeronDirectoryName());
+        return Aeron.connect(context);
+    }
+
     public void host() throws IOException {
         leave();
         Logging.of(this).info("this.addressUDP=" + Addressing.longToPort(this.addressUDP));
         call = new Call(addressUDP);
+        membership.start();
     }
     
-    public void join(final long addressTCPHost) throws IOException {
+    public void join(final long addressTCPMember) throws Exception {
         leave();
         
-        final Packet packet = new Packet();
-        packet.wrap(new byte[8 + Packet.SIZE_METADATA]);
-        packet.putLong(0, this.addressTCP);
+        final Packet packet = membership.snapshot(request);
         packet.setType(Packet.TYPE_JOIN).setAddressUDP(this.addressUDP);
         
-        final byte[] bytes = TCP.unicast(addressTCPHost, packet);
-        for (int index = 0; index < bytes.length; index += 16) {
-            final long addressTCP = Streaming.readLong(bytes, index);
-            final long addressUDP = Streaming.readLong(bytes, index + 8);
-            broadcaster.addAddressUDP(addressUDP);
-            if (addressTCP == addressTCPHost) {
-                Logging.of(this).info("this.addressUDP=" + Addressing.longToPort(this.addressUDP));
-                call = new Call(addressUDP);
-                continue;
-            }
-            call.addAddressPair(addressTCP, addressUDP);
-            TCP.unicast(addressTCP, packet);
+        final Packet reply = node.request(addressTCPMember, packet).get(MILLISECONDS_TIMEOUT, TimeUnit.MILLISECONDS);
+        if (reply.length() == 0) {
+            Logging.of(this).warning("addressTCPMember=" + Addressing.longToPort(addressTCPMember) + " is not in a call");
+            return;
         }
+        Logging.of(this).info("this.addressUDP=" + Addressing.longToPort(this.addressUDP) + " members=" + reply.length() / Membership.SIZE_UPDATE);
+        call = new Call(reply.addressUDP());
+        membership.merge(reply, Packet.SIZE_HEADER, reply.length());
+        membership.start();
+    }
+
+    public void joinRelay(final long addressTCPRelay) throws Exception {
+        joinRelay(addressTCPRelay, 0);
+    }
+
+    public void joinRelay(final long addressTCPRelay, final int callRelay) throws Exception {
+        leave();
+        final Packet packet = Relay.subscription(addressTCP, addressUDP, callRelay, media, layers, addressUDPSenders);
+        final Packet reply = node.request(addressTCPRelay, packet).get(MILLISECONDS_TIMEOUT, TimeUnit.MILLISECONDS);
+        final long addressUDPRelay = reply.addressUDP();
+        Logging.of(this).info("this.addressUDP=" + Addressing.longToPort(this.addressUDP) + " callRelay=" + callRelay + " addressUDPRelay=" + Addressing.longToPort(addressUDPRelay));
+        broadcaster.addAddressUDP(addressUDPRelay);
+        call = new Call(addressUDPRelay);
+        call.addAddressPair(addressTCPRelay, addressUDPRelay);
+        this.addressTCPRelay = addressTCPRelay;
+        this.callRelay = callRelay;
+    }
+
+    public void select(final byte media, final long... addressUDPSenders) throws IOException {
+        if (addressTCPRelay == 0) throw new IllegalStateException("select requires joinRelay");
+        this.media = media;
+        this.addressUDPSenders = addressUDPSenders;
+        node.send(addressTCPRelay, Relay.subscription(addressTCP, addressUDP, callRelay, media, layers, addressUDPSenders));
+    }
+
+    public void setLayers(final int layers) throws IOException {
+        this.layers = layers;
+        receiver.setLayers(layers);
+        window.setLayers(layers);
+        if (addressTCPRelay != 0) node.send(addressTCPRelay, Relay.subscription(addressTCP, addressUDP, callRelay, media, layers, addressUDPSenders));
+    }
+
+    public synchronized void startRecording(final File directory) {
+        stopRecording();
+        recorder = new Recorder(directory);
+        recorder.subscribe(camera);
+        recorder.subscribe(microphone);
+        recorder.subscribe(receiver);
+    }
+
+    public synchronized void stopRecording() {
+        if (recorder == null) return;
+        recorder.stop();
+        recorder = null;
     }
 
     public void leave() throws IOException {
-        if (call != null) {
-            final Packet packet = new Packet();
-            packet.wrap(new byte[Packet.SIZE_METADATA]);
-            packet.setType(Packet.TYPE_LEAVE).setAddressUDP(addressUDP).setTime(System.nanoTime());
-            TCP.multicast(call.addressUDPtoAddressTCP.values(), packet);
-            
-            camera.stop();
-            microphone.stop();
-            broadcaster.stop();
-            receiver.stop();
-            speaker.stop();
-            window.stop();
-            call = null;
+        stopRecording();
+        final Call call = this.call;
+        if (call == null) return;
+        if (addressTCPRelay != 0) {
+            request.allocate(Packet.SIZE_HEADER).setMemory(0, Packet.SIZE_HEADER, (byte) 0);
+            request.setType(Packet.TYPE_LEAVE).setAddressUDP(addressUDP).setTime(System.nanoTime());
+            node.send(addressTCPRelay, request);
+        } else {
+            membership.leave();
         }
+        Logging.of(this).info("broadcaster " + broadcaster.counters());
+        Logging.of(this).info("receiver " + receiver.counters());
+        Logging.of(this).info("microphone frames=" + microphone.countFrames() + " suppressed=" + microphone.countSuppressed());
+        
+        membership.stop();
+        this.call = null;
+        for (final long addressUDPMember : call.addressUDPtoAddressTCP.keySet()) broadcaster.removeAddressUDP(addressUDPMember);
+        speaker.clear();
+        window.clear();
+        addressTCPRelay = 0;
+        callRelay = 0;
     }
 
-    private void handle(final Socket socket, final Packet packet) throws IOException {
+    public void close() throws IOException {
+        leave();
+        camera.stop();
+        microphone.stop();
+        broadcaster.stop();
+        receiver.stop();
+        speaker.stop();
+        window.stop();
+        feedbackReporter.stop();
+        clockSynchronizer.stop();
+        node.stop();
+        for (final String label : labelsMetrics) Metrics.SHARED.remove(label);
+        labelsMetrics.clear();
+    }
+
+    private void handle(final TCP.Connection connection, final long correlation, final Packet packet) throws IOException {
         switch (packet.type()) {
-            case Packet.TYPE_JOIN: handleJoin(socket, packet);
-            case Packet.TYPE_LEAVE: handleLeave(socket, packet);
+            case Packet.TYPE_JOIN: handleJoin(connection, correlation, packet); break;
+            case Packet.TYPE_LEAVE: if (addressTCPRelay != 0) onMemberDead(0, packet.addressUDP()); break;
+            case Packet.TYPE_FEEDBACK: handleFeedback(packet); break;
+            case Packet.TYPE_CLOCK: clockSynchronizer.handle(packet); break;
+            case Packet.TYPE_KEYFRAME: camera.requestKeyframe(packet.layer()); break;
         }
     }
 
-    private void handleJoin(final Socket socket, final Packet packet) throws IOException {
-        final OutputStream stream = socket.getOutputStream();
-        if (call != null) {
-            final long addressTCPJoiner = packet.getLong(0);
-            final long addressUDPJoiner = packet.addressUDP();
-            call.addAddressPair(addressTCPJoiner, addressUDPJoiner);
-            broadcaster.addAddressUDP(addressUDPJoiner);
+    private void route(final long addressUDPTarget, final Packet packet) {
+        if (call == null) return;
+        final Long addressTCP = addressTCPRelay != 0 ? Long.valueOf(addressTCPRelay) : call.addressUDPtoAddressTCP.get(addressUDPTarget);
+        if (addressTCP == null) return;
+        try { node.send(addressTCP, packet); }
+        catch (IOException exception) { Logging.of(this).warning(exception.toString()); }
+    }
+
+    private void handleFeedback(final Packet packet) {
+        final long target = rateController.update(packet.addressUDP(), System.nanoTime(), packet);
+        camera.setTarget(Math.max(0, target - bitrateAudio));
+        if (!RELIABLE_AUDIO) broadcaster.reportLoss(packet.getFloat(FeedbackReporter.OFFSET_LOSS));
+    }
+
+    private void handleJoin(final TCP.Connection connection, final long correlation, final Packet packet) {
+        if (call == null) {
+            replyJoin.allocate(Packet.SIZE_HEADER).setMemory(0, Packet.SIZE_HEADER, (byte) 0);
+        } else {
+            membership.snapshot(replyJoin);
+            membership.merge(packet, Packet.SIZE_HEADER, packet.length());
             Logging.of(this).info(
-            "this.addressUDP=" + Addressing.longToPort(this.addressUDP)
-                + " addressUDPJoiner=" + Addressing.longToPort(packet.getLong(0))
-                + " call.addressUDPtoAddressTCP.size()=" + call.addressUDPtoAddressTCP.size()
+                "this.addressUDP=" + Addressing.longToPort(this.addressUDP)
+                + " addressUDPJoiner=" + Addressing.longToPort(packet.addressUDP())
+                + " members=" + replyJoin.length() / Membership.SIZE_UPDATE
             );
-            
-            if (call.addressUDPHost == this.addressUDP) {
-                Streaming.writeLong(stream, this.addressTCP);
-                Streaming.writeLong(stream, this.addressUDP);
-                for (Map.Entry<Long, Long> entry : call.addressUDPtoAddressTCP.entrySet()) {
-                    if (entry.getKey() != addressUDPJoiner) {
-                        Streaming.writeLong(stream, entry.getValue());
-                        Streaming.writeLong(stream, entry.getKey());
-                    }
-                }
-            }
         }
-        stream.write('\n');
+        replyJoin.setType(Packet.TYPE_JOIN).setAddressUDP(addressUDP);
+        if (correlation != 0) node.reply(connection, correlation, replyJoin);
     }
 
-    private void handleLeave(final Socket socket, final Packet packet) throws IOException {
-        if (call != null) {
-            call.removeAddressPair(packet.addressUDP());
-            speaker.removeAddressUDP(packet.addressUDP());
-            window.removeAddressUDP(packet.addressUDP());
-        }
-        socket.getOutputStream().write('\n');
+    private void onMemberAlive(final long addressTCP, final long addressUDP) {
+        final Call call = this.call;
+        if (call == null) return;
+        call.addAddressPair(addressTCP, addressUDP);
+        broadcaster.addAddressUDP(addressUDP);
+    }
+
+    private void onMemberDead(final long addressTCP, final long addressUDP) {
+        final Call call = this.call;
+        if (call != null && call.removeAddressPair(addressUDP)) broadcaster.removeAddressUDP(addressUDP);
+        speaker.removeAddressUDP(addressUDP);
+        window.removeAddressUDP(addressUDP);
     }
 
     public static void main(final String[] arguments) throws Exception {
@@ -681,10 +373,17 @@ public class Participant {
                 Addressing.stringToLong("127.0.0.1:" + (20000 + ((index * 2) + 1)))
             );
         }
-        participants[0].host();
-        for (int index = 1; index < participants.length; index += 1) {
-            participants[index].join(participants[0].addressTCP);
+        if (arguments.length > 0 && arguments[0].equals("relay")) {
+            new Relay(connect(), Addressing.stringToLong("127.0.0.1:19998"), Addressing.stringToLong("127.0.0.1:19999"));
+            for (final Participant participant : participants) participant.joinRelay(Addressing.stringToLong("127.0.0.1:19998"));
+            participants[1].select(Packet.TYPE_AUDIO, participants[0].addressUDP);
+            participants[2].setLayers(1 << 2);
+        } else {
+            participants[0].host();
+            for (int index = 1; index < participants.length; index += 1) {
+                participants[index].join(participants[0].addressTCP);
+            }
         }
         participants[2].leave();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+import org.agrona.BitUtil;
+import org.agrona.BufferUtil;
+import org.agrona.collections.LongArrayList;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+class Pool {
+    private static final ThreadLocal<Pool> LOCAL = ThreadLocal.withInitial(Pool::new);
+    private static final ArrayList<ByteBuffer> SLABS = new ArrayList<>();
+    
+    private static final int SHIFT_CLASS_MINIMUM = 8;
+    private static final int COUNT_CLASSES = 15;
+    private static final int SIZE_SLAB = 1 << 20;
+    
+    private final LongArrayList[] sizeClassToFree = new LongArrayList[COUNT_CLASSES];
+    
+    Pool() {
+        for (int index = 0; index < COUNT_CLASSES; index += 1) sizeClassToFree[index] = new LongArrayList();
+    }
+    
+    public static Pool local() {
+        return LOCAL.get();
+    }
+    
+    public static int sizeClass(final int capacity) {
+        final int size = Math.max(1 << SHIFT_CLASS_MINIMUM, BitUtil.findNextPositivePowerOfTwo(capacity));
+        if (size > 1 << (SHIFT_CLASS_MINIMUM + COUNT_CLASSES - 1)) throw new IllegalArgumentException("capacity=" + capacity);
+        return size;
+    }
+    
+    public long acquire(final int sizeClass) {
+        final LongArrayList free = sizeClassToFree[Integer.numberOfTrailingZeros(sizeClass) - SHIFT_CLASS_MINIMUM];
+        if (free.isEmpty()) grow(sizeClass, free);
+        return free.popLong();
+    }
+    
+    public void release(final long address, final int sizeClass) {
+        sizeClassToFree[Integer.numberOfTrailingZeros(sizeClass) - SHIFT_CLASS_MINIMUM].pushLong(address);
+    }
+    
+    private void grow(final int sizeClass, final LongArrayList free) {
+        final ByteBuffer slab = ByteBuffer.allocateDirect(Math.max(SIZE_SLAB, sizeClass) + BitUtil.CACHE_LINE_LENGTH);
+        final long address = (BufferUtil.address(slab) + BitUtil.CACHE_LINE_LENGTH - 1) & -BitUtil.CACHE_LINE_LENGTH;
+        final int slabs;
+        synchronized (SLABS) {
+            SLABS.add(slab);
+            slabs = SLABS.size();
+        }
+        for (int offset = 0; offset + sizeClass <= Math.max(SIZE_SLAB, sizeClass); offset += sizeClass) {
+            free.pushLong(address + offset);
+        }
+        Logging.of(this).info("sizeClass=" + sizeClass + " slabs=" + slabs + " thread=" + Thread.currentThread().getName());
+    }
+}
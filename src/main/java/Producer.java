@@ -0,0 +1,18 @@
+import java.util.concurrent.TimeUnit;
+
+abstract class Producer extends Daemon {
+    public final RingBuffer<Packet> buffer;
+    
+    Producer(final int delay) {
+        this(delay, TimeUnit.MILLISECONDS);
+    }
+
+    Producer(final long period, final TimeUnit unit) {
+        super(period, unit);
+        buffer = new RingBuffer<>(Packet::factory, 64);
+    }
+    
+    @Override protected int run() { return produce(); }
+    
+    protected abstract int produce();
+}
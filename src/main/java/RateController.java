@@ -0,0 +1,64 @@
+import org.agrona.collections.Long2ObjectHashMap;
+
+import java.util.Iterator;
+
+class RateController {
+    private static final long NANOS_STALE = 3_000_000_000L;
+    private static final long NANOS_DECREASE = 300_000_000L;
+
+    private final long bitrateMinimum;
+    private final long bitrateMaximum;
+    private final Long2ObjectHashMap<Estimate> addressUDPToEstimate = new Long2ObjectHashMap<>();
+
+    public RateController(final long bitrateMinimum, final long bitrateMaximum) {
+        this.bitrateMinimum = bitrateMinimum;
+        this.bitrateMaximum = bitrateMaximum;
+    }
+
+    public synchronized long update(final long addressUDPReceiver, final long timeNow, final Packet report) {
+        Estimate estimate = addressUDPToEstimate.get(addressUDPReceiver);
+        if (estimate == null) {
+            estimate = new Estimate(bitrateMaximum / 8);
+            addressUDPToEstimate.put(addressUDPReceiver, estimate);
+        }
+        final long bitrateReceived = report.getLong(FeedbackReporter.OFFSET_BITRATE);
+        final float loss = report.getFloat(FeedbackReporter.OFFSET_LOSS);
+        switch (report.getByte(FeedbackReporter.OFFSET_SIGNAL)) {
+            case DelayEstimator.SIGNAL_OVERUSE:
+                if (timeNow - estimate.timeDecrease > NANOS_DECREASE) {
+                    estimate.bitrate = Math.min(estimate.bitrate, bitrateReceived * 85 / 100);
+                    estimate.timeDecrease = timeNow;
+                }
+                break;
+            case DelayEstimator.SIGNAL_NORMAL:
+                final long ceiling = Math.max(bitrateReceived * 2, bitrateMinimum);
+                if (loss < 0.02f && estimate.bitrate < ceiling) estimate.bitrate = Math.min(estimate.bitrate * 102 / 100, ceiling);
+                break;
+        }
+        if (loss > 0.1f) estimate.bitrate = (long) (estimate.bitrate * (1 - 0.5f * loss));
+        estimate.bitrate = Math.max(bitrateMinimum, Math.min(bitrateMaximum, estimate.bitrate));
+        estimate.time = timeNow;
+        return target(timeNow);
+    }
+
+    public synchronized long target(final long timeNow) {
+        long target = bitrateMaximum;
+        final Iterator<Estimate> iterator = addressUDPToEstimate.values().iterator();
+        while (iterator.hasNext()) {
+            final Estimate estimate = iterator.next();
+            if (timeNow - estimate.time > NANOS_STALE) iterator.remove();
+            else target = Math.min(target, estimate.bitrate);
+        }
+        return target;
+    }
+
+    private static class Estimate {
+        long bitrate;
+        long time = 0;
+        long timeDecrease = 0;
+
+        Estimate(final long bitrate) {
+            this.bitrate = bitrate;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+class Recorder extends Consumer {
+    private static final int SIZE_SEGMENT = 64 << 20;
+    private static final int COUNT_INDEX_ENTRIES = 1 << 20;
+    private static final long NANOS_INDEX = 1_000_000_000L;
+    private static final int SIZE_QUEUE = 512;
+    private static final int SIZE_BATCH = 16;
+    private static final int SIZE_ARENA = 8 << 20;
+    private static final int SIZE_RECORD_MAXIMUM = SIZE_ARENA >> 4;
+
+    private final RingBuffer<Record> records = new RingBuffer<>(Record::new, SIZE_QUEUE);
+    private final int ticket = records.subscribe();
+    private final UnsafeBuffer arena = new UnsafeBuffer(ByteBuffer.allocateDirect(SIZE_ARENA));
+    private long bytesClaimed = 0;
+    private volatile long bytesReleased = 0;
+    private final Writer writer;
+    private final File directory;
+    private final int sizeSegment;
+    private final MappedByteBuffer mappedIndex;
+    private final UnsafeBuffer index;
+    private MappedByteBuffer mappedCurrent;
+    private MappedByteBuffer mappedNext;
+    private final UnsafeBuffer current = new UnsafeBuffer(0, 0);
+    private int segment = 0;
+    private int position = Recording.SIZE_HEADER;
+    private long countEntries = 0;
+    private long timeIndexLast = Long.MIN_VALUE;
+    private volatile long bytesRecorded = 0;
+    private volatile long countDropped = 0;
+
+    public Recorder(final File directory) {
+        this(directory, SIZE_SEGMENT);
+    }
+
+    public Recorder(final File directory, final int sizeSegment) {
+        super(0, (byte) (Packet.TYPE_AUDIO | Packet.TYPE_VIDEO));
+        this.directory = directory;
+        this.sizeSegment = sizeSegment;
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IllegalArgumentException("directory=" + directory);
+        mappedIndex = IoUtil.mapNewFile(Recording.index(directory), Recording.SIZE_HEADER + (long) COUNT_INDEX_ENTRIES * Recording.SIZE_INDEX_ENTRY);
+        index = new UnsafeBuffer(mappedIndex);
+        index.putLong(Recording.OFFSET_EPOCH_MILLISECONDS, System.currentTimeMillis());
+        index.putLong(Recording.OFFSET_TIME_START, System.nanoTime());
+        index.putLongOrdered(Recording.OFFSET_MAGIC, Recording.MAGIC_INDEX);
+        mappedCurrent = map(segment);
+        current.wrap(mappedCurrent);
+        Logging.of(this).info("directory=" + directory);
+        writer = new Writer();
+        start();
+    }
+
+    public long bytesRecorded() { return bytesRecorded; }
+    public long countDropped() { return countDropped; }
+
+    private MappedByteBuffer map(final int segment) {
+        final MappedByteBuffer mapped = IoUtil.mapNewFile(Recording.segment(directory, segment), sizeSegment, false);
+        final UnsafeBuffer buffer = new UnsafeBuffer(mapped);
+        buffer.putInt(Recording.OFFSET_SEGMENT, segment);
+        buffer.putLongOrdered(Recording.OFFSET_MAGIC, Recording.MAGIC_SEGMENT);
+        return mapped;
+    }
+
+    @Override protected void consume(final Packet packet) {
+        final int length = packet.size();
+        if (length > SIZE_RECORD_MAXIMUM || Recording.SIZE_HEADER + BitUtil.align(Recording.SIZE_RECORD_HEADER + length, 8) > sizeSegment) {
+            countDropped += 1;
+            return;
+        }
+        final int offset = (int) bytesClaimed & (SIZE_ARENA - 1);
+        final int padding = offset + length > SIZE_ARENA ? SIZE_ARENA - offset : 0;
+        final int footprint = padding + length;
+        if (bytesClaimed + footprint - bytesReleased > SIZE_ARENA) {
+            countDropped += 1;
+            return;
+        }
+        final Record record = records.tryClaim();
+        if (record == null) {
+            countDropped += 1;
+            return;
+        }
+        record.time = System.nanoTime();
+        record.offset = padding == 0 ? offset : 0;
+        record.length = length;
+        record.footprint = footprint;
+        arena.putBytes(record.offset, packet, 0, length);
+        bytesClaimed += footprint;
+        records.commit();
+    }
+
+    @Override protected void stop() {
+        super.stop();
+        writer.stop();
+    }
+
+    private int drain() {
+        final int count = records.acquire(ticket, SIZE_BATCH);
+        long footprint = 0;
+        for (int index = 0; index < count; index += 1) {
+            final Record record = records.get(ticket, index);
+            write(arena, record.offset, record.length, record.time);
+            footprint += record.footprint;
+        }
+        if (count > 0) {
+            bytesReleased += footprint;
+            records.release(ticket, count);
+        }
+        return count;
+    }
+
+    private void write(final DirectBuffer bytes, final int offset, final int length, final long time) {
+        final int lengthRecord = BitUtil.align(Recording.SIZE_RECORD_HEADER + length, 8);
+        if (position + lengthRecord > sizeSegment) rotate();
+        if (position == Recording.SIZE_HEADER || time - timeIndexLast >= NANOS_INDEX) indexEntry(time);
+
+        current.putLong(position + Recording.OFFSET_RECORD_TIME, time);
+        current.putBytes(position + Recording.SIZE_RECORD_HEADER, bytes, offset, length);
+        current.putIntOrdered(position + Recording.OFFSET_RECORD_LENGTH, length);
+        position += lengthRecord;
+        bytesRecorded += lengthRecord;
+    }
+
+    private void rotate() {
+        final MappedByteBuffer mappedPrevious = mappedCurrent;
+        mappedCurrent = mappedNext != null ? mappedNext : map(segment + 1);
+        mappedNext = null;
+        current.wrap(mappedCurrent);
+        IoUtil.unmap(mappedPrevious);
+        segment += 1;
+        position = Recording.SIZE_HEADER;
+    }
+
+    private void indexEntry(final long time) {
+        if (countEntries >= COUNT_INDEX_ENTRIES) return;
+        final int offset = Recording.SIZE_HEADER + (int) countEntries * Recording.SIZE_INDEX_ENTRY;
+        index.putLong(offset, time);
+        index.putInt(offset + 8, segment);
+        index.putInt(offset + 12, position);
+        countEntries += 1;
+        index.putLongOrdered(Recording.OFFSET_COUNT_ENTRIES, countEntries);
+        timeIndexLast = time;
+    }
+
+    private static class Record {
+        int offset;
+        int length;
+        int footprint;
+        long time;
+    }
+
+    private class Writer extends Daemon {
+        Writer() {
+            super(0);
+            start(Scheduler.SHARED, true);
+        }
+
+        @Override protected int run() {
+            final int work = drain();
+            if (work == 0 && mappedNext == null) mappedNext = map(segment + 1);
+            return work;
+        }
+
+        @Override public void onClose() {
+            while (drain() > 0) continue;
+            IoUtil.unmap(mappedCurrent);
+            if (mappedNext != null) IoUtil.unmap(mappedNext);
+            IoUtil.unmap(mappedIndex);
+            Logging.of(Recorder.this).info("segments=" + (segment + 1) + " bytesRecorded=" + bytesRecorded + " countDropped=" + countDropped);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+import org.agrona.BitUtil;
+import org.agrona.IoUtil;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import javax.sound.sampled.AudioFormat;
+import java.awt.Dimension;
+import java.io.File;
+import java.nio.MappedByteBuffer;
+
+class Recording {
+    public static final long MAGIC_SEGMENT = 0x434F4E465345474DL;
+    public static final long MAGIC_INDEX = 0x434F4E46494E4458L;
+    public static final int SIZE_HEADER = 64;
+    public static final int SIZE_RECORD_HEADER = 16;
+    public static final int SIZE_INDEX_ENTRY = 16;
+
+    public static final int OFFSET_MAGIC = 0;
+    public static final int OFFSET_SEGMENT = 8;
+    public static final int OFFSET_COUNT_ENTRIES = 8;
+    public static final int OFFSET_EPOCH_MILLISECONDS = 16;
+    public static final int OFFSET_TIME_START = 24;
+
+    public static final int OFFSET_RECORD_LENGTH = 0;
+    public static final int OFFSET_RECORD_TIME = 8;
+
+    static File segment(final File directory, final int segment) {
+        return new File(directory, String.format("segment-%08d.log", segment));
+    }
+
+    static File index(final File directory) {
+        return new File(directory, "index.log");
+    }
+}
+
+class RecordingReader {
+    private final File directory;
+    private final MappedByteBuffer mappedIndex;
+    private final UnsafeBuffer index;
+    private final UnsafeBuffer current = new UnsafeBuffer(0, 0);
+    private MappedByteBuffer mappedCurrent;
+    private int segment = -1;
+    private int position;
+    private int length;
+    private long time;
+
+    public RecordingReader(final File directory) {
+        this.directory = directory;
+        mappedIndex = IoUtil.mapExistingFile(Recording.index(directory), "index");
+        index = new UnsafeBuffer(mappedIndex);
+        if (index.getLongVolatile(Recording.OFFSET_MAGIC) != Recording.MAGIC_INDEX) throw new IllegalArgumentException("directory=" + directory);
+        seek(timeStart());
+    }
+
+    public long timeStart() { return index.getLong(Recording.OFFSET_TIME_START); }
+    public long epochMillisecondsStart() { return index.getLong(Recording.OFFSET_EPOCH_MILLISECONDS); }
+    public long time() { return time; }
+    public int length() { return length; }
+    public UnsafeBuffer buffer() { return current; }
+    public int offset() { return position + Recording.SIZE_RECORD_HEADER; }
+
+    public void seek(final long time) {
+        final long count = index.getLongVolatile(Recording.OFFSET_COUNT_ENTRIES);
+        long low = 0;
+        long high = count - 1;
+        long found = 0;
+        while (low <= high) {
+            final long middle = (low + high) >>> 1;
+            if (index.getLong(entry(middle)) <= time) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        length = 0;
+        if (count == 0) {
+            open(0, Recording.SIZE_HEADER);
+            return;
+        }
+        open(index.getInt(entry(found) + 8), index.getInt(entry(found) + 12));
+        while (peek() && current.getLong(position + Recording.OFFSET_RECORD_TIME) < time) position += BitUtil.align(Recording.SIZE_RECORD_HEADER + current.getInt(position), 8);
+    }
+
+    public boolean next() {
+        if (length > 0) position += BitUtil.align(Recording.SIZE_RECORD_HEADER + length, 8);
+        length = 0;
+        if (!peek()) return false;
+        length = current.getInt(position + Recording.OFFSET_RECORD_LENGTH);
+        time = current.getLong(position + Recording.OFFSET_RECORD_TIME);
+        return true;
+    }
+
+    private boolean peek() {
+        if (available()) return true;
+        if (!Recording.segment(directory, segment + 1).exists()) return false;
+        final int segmentPrevious = segment;
+        final int positionPrevious = position;
+        open(segment + 1, Recording.SIZE_HEADER);
+        if (available()) return true;
+        open(segmentPrevious, positionPrevious);
+        return false;
+    }
+
+    private boolean available() {
+        return mappedCurrent != null
+            && position + Recording.SIZE_RECORD_HEADER <= current.capacity()
+            && current.getIntVolatile(position + Recording.OFFSET_RECORD_LENGTH) > 0;
+    }
+
+    private static int entry(final long entry) {
+        return Recording.SIZE_HEADER + (int) entry * Recording.SIZE_INDEX_ENTRY;
+    }
+
+    private void open(final int segment, final int position) {
+        if (segment != this.segment) {
+            if (mappedCurrent != null) IoUtil.unmap(mappedCurrent);
+            mappedCurrent = IoUtil.mapExistingFile(Recording.segment(directory, segment), "segment");
+            current.wrap(mappedCurrent);
+            this.segment = segment;
+        }
+        this.position = position;
+    }
+
+    public void close() {
+        if (mappedCurrent != null) IoUtil.unmap(mappedCurrent);
+        IoUtil.unmap(mappedIndex);
+    }
+}
+
+class Replayer extends Producer {
+    private final RecordingReader reader;
+    private volatile double speed;
+    private volatile long timeSeek = Long.MIN_VALUE;
+    private volatile boolean playing = false;
+    private long timeReplayStart = 0;
+    private long timeRecordedStart = 0;
+    private double speedApplied;
+    private boolean pending = false;
+    private volatile boolean finished = false;
+    private volatile long countReplayed = 0;
+
+    public Replayer(final File directory, final double speed) {
+        super(0);
+        reader = new RecordingReader(directory);
+        this.speed = speed;
+        start();
+    }
+
+    public void play() { playing = true; }
+    public void pause() { playing = false; }
+    public void seek(final long nanosFromStart) { timeSeek = reader.timeStart() + nanosFromStart; }
+    public void setSpeed(final double speed) { this.speed = speed; }
+    public boolean finished() { return finished; }
+    public long countReplayed() { return countReplayed; }
+
+    @Override protected int produce() {
+        final long timeSeek = this.timeSeek;
+        if (timeSeek != Long.MIN_VALUE) {
+            this.timeSeek = Long.MIN_VALUE;
+            reader.seek(timeSeek);
+            pending = false;
+            timeReplayStart = 0;
+            finished = false;
+        }
+        if (!playing) timeReplayStart = 0;
+        if (finished || !playing) return 0;
+        if (!pending) {
+            if (!reader.next()) {
+                finished = true;
+                return 0;
+            }
+            pending = true;
+        }
+        final long now = System.nanoTime();
+        final double speed = this.speed;
+        if (timeReplayStart == 0 || speed != speedApplied) {
+            speedApplied = speed;
+            timeReplayStart = now;
+            timeRecordedStart = reader.time();
+        }
+        if (speed > 0 && !Double.isInfinite(speed) && now - timeReplayStart < (reader.time() - timeRecordedStart) / speed) return 0;
+
+        if (!Packet.valid(reader.buffer(), reader.offset(), reader.length())) {
+            pending = false;
+            return 1;
+        }
+        final Packet packet = buffer.tryClaim();
+        if (packet == null) return 0;
+        packet.allocate(reader.length());
+        packet.putBytes(0, reader.buffer(), reader.offset(), reader.length());
+        buffer.commit();
+        pending = false;
+        countReplayed += 1;
+        return 1;
+    }
+
+    @Override public void onClose() {
+        reader.close();
+    }
+}
+
+class Tally extends Consumer {
+    private final Long2LongHashMap addressUDPToPackets = new Long2LongHashMap(0);
+    private long packetsAudio = 0;
+    private long packetsVideo = 0;
+    private long bytes = 0;
+
+    public Tally() {
+        super(0, (byte) (Packet.TYPE_AUDIO | Packet.TYPE_VIDEO));
+        start();
+    }
+
+    @Override protected synchronized void consume(final Packet packet) {
+        if ((packet.type() & Packet.TYPE_AUDIO) != 0) packetsAudio += 1;
+        else packetsVideo += 1;
+        bytes += packet.size();
+        addressUDPToPackets.put(packet.addressUDP(), addressUDPToPackets.get(packet.addressUDP()) + 1);
+    }
+
+    @Override public synchronized String toString() {
+        return "packetsAudio=" + packetsAudio + " packetsVideo=" + packetsVideo + " bytes=" + bytes + " senders=" + addressUDPToPackets.size();
+    }
+}
+
+class Replay {
+    public static void main(final String[] arguments) throws Exception {
+        final File directory = new File(arguments[0]);
+        final double speed = arguments.length > 1 ? Double.parseDouble(arguments[1]) : 1.0;
+        final long nanosSeek = arguments.length > 2 ? (long) (Double.parseDouble(arguments[2]) * 1_000_000_000L) : 0;
+        final boolean headless = arguments.length > 3 && arguments[3].equals("headless");
+
+        final Replayer replayer = new Replayer(directory, speed);
+        if (nanosSeek > 0) replayer.seek(nanosSeek);
+        final Tally tally = new Tally();
+        tally.subscribe(replayer);
+        if (!headless) {
+            final AudioFormat audioFormat = new AudioFormat(8000.0f, 16, 1, true, true);
+            final RemoteClock clock = (addressUDP, time) -> RemoteClock.UNKNOWN;
+            final Speaker speaker = new Speaker(audioFormat, new MuLawCodec(), clock);
+            final Window window = new Window(new Dimension(320, 240), 0, new TileCodec(), clock, speaker::timePlayout, (address, request) -> { });
+            window.setLayers((1 << UDP.COUNT_LAYERS) - 1);
+            speaker.subscribe(replayer);
+            window.subscribe(replayer);
+        }
+        replayer.play();
+        final long start = System.nanoTime();
+        while (!replayer.finished()) Thread.sleep(100);
+        Logging.of(Replay.class).info(tally + " seconds=" + (System.nanoTime() - start) / 1e9);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,321 @@
+import io.aeron.Aeron;
+import io.aeron.FragmentAssembler;
+import io.aeron.Publication;
+import io.aeron.Subscription;
+import io.aeron.driver.MediaDriver;
+import io.aeron.driver.ThreadingMode;
+import io.aeron.logbuffer.Header;
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongHashSet;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class Relay extends Daemon {
+    public static final int COUNTER_RECEIVED = 0;
+    public static final int COUNTER_FORWARDED = 1;
+    public static final int COUNTER_DROPPED = 2;
+    public static final int COUNTER_INVALID = 3;
+    public static final int COUNTER_UNROUTED = 4;
+    private static final String[] NAMES_COUNTERS = { "received", "forwarded", "dropped", "invalid", "unrouted" };
+
+    private static final int OFFSET_ADDRESS_TCP = Packet.SIZE_HEADER;
+    private static final int OFFSET_MASK = Packet.SIZE_HEADER + 8;
+    private static final int OFFSET_LAYERS = Packet.SIZE_HEADER + 9;
+    private static final int OFFSET_CALL = Packet.SIZE_HEADER + 10;
+    private static final int OFFSET_COUNT_SENDERS = Packet.SIZE_HEADER + 14;
+    private static final int OFFSET_SENDERS = Packet.SIZE_HEADER + 18;
+
+    private static final int FRAGMENTS_AUDIO = 256;
+    private static final int FRAGMENTS_VIDEO = 64;
+    private static final long NANOS_LINGER = 100_000_000L;
+
+    private final Aeron aeron;
+    private final long addressTCP;
+    private final long addressUDP;
+    private final TCP.Node node;
+    private final Subscription subscriptionAudio;
+    private final Subscription[] subscriptionsVideo = new Subscription[UDP.COUNT_LAYERS];
+    private final FragmentAssembler fragmentAssemblerAudio = new FragmentAssembler(this::forward, 0, true);
+    private final FragmentAssembler[] fragmentAssemblersVideo = new FragmentAssembler[UDP.COUNT_LAYERS];
+    private final Packet packet = new Packet();
+    private final Packet reply = new Packet();
+    private final AtomicLongArray counters = new AtomicLongArray(NAMES_COUNTERS.length);
+    private final Int2ObjectHashMap<Room> callToRoom = new Int2ObjectHashMap<>();
+    private volatile Long2ObjectHashMap<Room> addressUDPToRoom = new Long2ObjectHashMap<>();
+    private volatile int countRooms = 0;
+
+    public Relay(final Aeron aeron, final long addressTCP, final long addressUDP) throws IOException {
+        super(0);
+        this.aeron = aeron;
+        this.addressTCP = addressTCP;
+        this.addressUDP = addressUDP;
+        final String endpoint = "endpoint=" + Addressing.longToString(addressUDP);
+        subscriptionAudio = aeron.addSubscription(UDP.channel(endpoint, UDP.SIZE_TERM_AUDIO), UDP.STREAM_AUDIO);
+        for (int layer = 0; layer < UDP.COUNT_LAYERS; layer += 1) {
+            subscriptionsVideo[layer] = aeron.addSubscription(UDP.channel(endpoint, UDP.SIZE_TERM_VIDEO), UDP.streamVideo(layer));
+            fragmentAssemblersVideo[layer] = new FragmentAssembler(this::forward, 0, true);
+        }
+        node = new TCP.Node(addressTCP, this::handle);
+        for (int counter = 0; counter < NAMES_COUNTERS.length; counter += 1) {
+            final int index = counter;
+            Metrics.SHARED.gauge(label(NAMES_COUNTERS[counter]), () -> counters.get(index));
+        }
+        Metrics.SHARED.gauge(label("calls"), () -> countRooms);
+        Metrics.SHARED.gauge(label("subscribers"), () -> addressUDPToRoom.size());
+        Logging.of(this).info("addressTCP=" + Addressing.longToPort(addressTCP) + " addressUDP=" + Addressing.longToPort(addressUDP));
+        start(Scheduler.SHARED, true);
+    }
+
+    public static MediaDriver.Context driverContext() {
+        return new MediaDriver.Context()
+            .threadingMode(ThreadingMode.SHARED)
+            .termBufferSparseFile(true)
+            .publicationLingerTimeoutNs(NANOS_LINGER)
+            .dirDeleteOnStart(true)
+            .dirDeleteOnShutdown(true);
+    }
+
+    public static Packet subscription(
+        final long addressTCP, final long addressUDP, final int call, final byte mask, final int layers, final long... addressUDPSenders
+    ) {
+        final Packet packet = new Packet();
+        final int length = OFFSET_SENDERS - Packet.SIZE_HEADER + 8 * addressUDPSenders.length;
+        packet.wrap(new byte[Packet.SIZE_HEADER + length]);
+        packet.putLong(OFFSET_ADDRESS_TCP, addressTCP);
+        packet.putByte(OFFSET_MASK, mask);
+        packet.putByte(OFFSET_LAYERS, (byte) layers);
+        packet.putInt(OFFSET_CALL, call);
+        packet.putInt(OFFSET_COUNT_SENDERS, addressUDPSenders.length);
+        for (int index = 0; index < addressUDPSenders.length; index += 1) packet.putLong(OFFSET_SENDERS + index * 8, addressUDPSenders[index]);
+        packet.setType(Packet.TYPE_SUBSCRIBE).setLength(length).setAddressUDP(addressUDP);
+        return packet;
+    }
+
+    public long counter(final int counter) { return counters.get(counter); }
+    public int countRooms() { return countRooms; }
+    public int countSubscribers() { return addressUDPToRoom.size(); }
+
+    private String label(final String name) {
+        return Addressing.longToPort(addressUDP) + " relay." + name;
+    }
+
+    @Override protected int run() {
+        int fragments = subscriptionAudio.poll(fragmentAssemblerAudio, FRAGMENTS_AUDIO);
+        if (fragments < FRAGMENTS_AUDIO) {
+            for (int layer = 0; layer < UDP.COUNT_LAYERS; layer += 1) {
+                fragments += subscriptionsVideo[layer].poll(fragmentAssemblersVideo[layer], FRAGMENTS_VIDEO);
+            }
+        }
+        return fragments;
+    }
+
+    private void forward(final DirectBuffer buffer, final int offset, final int length, final Header header) {
+        if (!Packet.valid(buffer, offset, length)) {
+            increment(COUNTER_INVALID);
+            return;
+        }
+        packet.wrap(buffer, offset, length);
+        final long sender = packet.addressUDP();
+        final Room room = addressUDPToRoom.get(sender);
+        if (room == null) {
+            increment(COUNTER_UNROUTED);
+            return;
+        }
+        final byte type = packet.type();
+        final int layer = (type & Packet.TYPE_AUDIO) != 0 ? 0 : packet.layer();
+        increment(COUNTER_RECEIVED);
+        for (final Subscriber subscriber : room.subscribers) {
+            if (!subscriber.accepts(sender, type, layer)) continue;
+            final Publication publication = (type & Packet.TYPE_AUDIO) != 0 ? subscriber.publicationAudio : subscriber.publicationsVideo[layer];
+            if (publication == null || length > publication.maxMessageLength()) {
+                increment(COUNTER_DROPPED);
+                continue;
+            }
+            increment(publication.offer(buffer, offset, length) > 0 ? COUNTER_FORWARDED : COUNTER_DROPPED);
+        }
+    }
+
+    private void increment(final int counter) {
+        counters.lazySet(counter, counters.get(counter) + 1);
+    }
+
+    private void handle(final TCP.Connection connection, final long correlation, final Packet packet) throws IOException {
+        switch (packet.type()) {
+            case Packet.TYPE_SUBSCRIBE: handleSubscribe(connection, correlation, packet); break;
+            case Packet.TYPE_LEAVE: leave(packet.addressUDP(), packet); break;
+            case Packet.TYPE_FEEDBACK: handleForward(packet.getLong(FeedbackReporter.OFFSET_ADDRESS_SENDER), packet); break;
+            case Packet.TYPE_CLOCK: handleForward(packet.getLong(ClockSynchronizer.OFFSET_ADDRESS_TARGET), packet); break;
+            case Packet.TYPE_KEYFRAME: handleForward(packet.getLong(Window.OFFSET_ADDRESS_SENDER), packet); break;
+        }
+    }
+
+    private void handleForward(final long addressUDPTarget, final Packet packet) throws IOException {
+        final Long2ObjectHashMap<Room> addressUDPToRoom = this.addressUDPToRoom;
+        final Room room = addressUDPToRoom.get(addressUDPTarget);
+        if (room == null || room != addressUDPToRoom.get(packet.addressUDP())) return;
+        for (final Subscriber subscriber : room.subscribers) {
+            if (subscriber.addressUDP == addressUDPTarget) node.send(subscriber.addressTCP, packet);
+        }
+    }
+
+    private void handleSubscribe(final TCP.Connection connection, final long correlation, final Packet packet) {
+        final int count = packet.size() < OFFSET_SENDERS ? -1 : packet.getInt(OFFSET_COUNT_SENDERS);
+        if (count < 0 || count > (packet.size() - OFFSET_SENDERS) / 8) {
+            Logging.of(this).warning("invalid subscription length=" + packet.length() + " count=" + count);
+            return;
+        }
+        final LongHashSet senders = new LongHashSet();
+        for (int index = 0; index < count; index += 1) senders.add(packet.getLong(OFFSET_SENDERS + index * 8));
+        subscribe(packet.getInt(OFFSET_CALL), packet.getLong(OFFSET_ADDRESS_TCP), packet.addressUDP(), packet.getByte(OFFSET_MASK), packet.getByte(OFFSET_LAYERS), senders);
+
+        if (correlation != 0) {
+            reply.allocate(Packet.SIZE_HEADER).setMemory(0, Packet.SIZE_HEADER, (byte) 0);
+            reply.setType(Packet.TYPE_SUBSCRIBE).setAddressUDP(addressUDP);
+            node.reply(connection, correlation, reply);
+        }
+    }
+
+    public synchronized void subscribe(
+        final int call, final long addressTCPSubscriber, final long addressUDPSubscriber, final byte mask, final int layers, final LongHashSet senders
+    ) {
+        Room room = callToRoom.get(call);
+        if (room == null) {
+            room = new Room(call);
+            callToRoom.put(call, room);
+            countRooms = callToRoom.size();
+        }
+        final Room roomPrevious = addressUDPToRoom.get(addressUDPSubscriber);
+        Subscriber subscriber = roomPrevious == null ? null : roomPrevious.find(addressUDPSubscriber);
+        if (subscriber == null) subscriber = new Subscriber(addressTCPSubscriber, addressUDPSubscriber);
+        subscriber.setFilter(new Filter(mask, layers, senders));
+        if (roomPrevious != room) {
+            if (roomPrevious != null) remove(roomPrevious, subscriber);
+            room.add(subscriber);
+            final Long2ObjectHashMap<Room> addressUDPToRoom = new Long2ObjectHashMap<>(this.addressUDPToRoom);
+            addressUDPToRoom.put(addressUDPSubscriber, room);
+            this.addressUDPToRoom = addressUDPToRoom;
+        }
+        Logging.of(this).info(
+            "call=" + call + " addressUDPSubscriber=" + Addressing.longToPort(addressUDPSubscriber)
+            + " mask=" + mask + " layers=" + layers + " senders=" + senders.size() + " room.subscribers.length=" + room.subscribers.length
+        );
+    }
+
+    private synchronized void leave(final long addressUDPLeaver, final Packet packet) throws IOException {
+        final Room room = addressUDPToRoom.get(addressUDPLeaver);
+        if (room == null) return;
+        final Subscriber subscriber = room.find(addressUDPLeaver);
+        remove(room, subscriber);
+        subscriber.close();
+        final Long2ObjectHashMap<Room> addressUDPToRoom = new Long2ObjectHashMap<>(this.addressUDPToRoom);
+        addressUDPToRoom.remove(addressUDPLeaver);
+        this.addressUDPToRoom = addressUDPToRoom;
+        for (final Subscriber remaining : room.subscribers) node.send(remaining.addressTCP, packet);
+    }
+
+    private void remove(final Room room, final Subscriber subscriber) {
+        room.remove(subscriber);
+        if (room.subscribers.length > 0) return;
+        callToRoom.remove(room.call);
+        countRooms = callToRoom.size();
+    }
+
+    @Override public void onClose() {
+        for (final String name : NAMES_COUNTERS) Metrics.SHARED.remove(label(name));
+        Metrics.SHARED.remove(label("calls"));
+        Metrics.SHARED.remove(label("subscribers"));
+        synchronized (this) {
+            for (final Room room : callToRoom.values()) for (final Subscriber subscriber : room.subscribers) subscriber.close();
+        }
+        subscriptionAudio.close();
+        for (final Subscription subscriptionVideo : subscriptionsVideo) subscriptionVideo.close();
+    }
+
+    private static class Room {
+        final int call;
+        volatile Subscriber[] subscribers = new Subscriber[0];
+
+        Room(final int call) {
+            this.call = call;
+        }
+
+        Subscriber find(final long addressUDP) {
+            for (final Subscriber subscriber : subscribers) if (subscriber.addressUDP == addressUDP) return subscriber;
+            return null;
+        }
+
+        void add(final Subscriber subscriber) {
+            final Subscriber[] subscribers = Arrays.copyOf(this.subscribers, this.subscribers.length + 1);
+            subscribers[subscribers.length - 1] = subscriber;
+            this.subscribers = subscribers;
+        }
+
+        void remove(final Subscriber subscriber) {
+            final Subscriber[] subscribers = new Subscriber[this.subscribers.length];
+            int length = 0;
+            for (final Subscriber candidate : this.subscribers) if (candidate != subscriber) subscribers[length++] = candidate;
+            this.subscribers = Arrays.copyOf(subscribers, length);
+        }
+    }
+
+    private static class Filter {
+        final byte mask;
+        final int layers;
+        final LongHashSet senders;
+
+        Filter(final byte mask, final int layers, final LongHashSet senders) {
+            this.mask = mask;
+            this.layers = layers;
+            this.senders = senders;
+        }
+    }
+
+    private class Subscriber {
+        final long addressTCP;
+        final long addressUDP;
+        final String endpoint;
+        volatile Publication publicationAudio;
+        final Publication[] publicationsVideo = new Publication[UDP.COUNT_LAYERS];
+        volatile Filter filter;
+
+        Subscriber(final long addressTCP, final long addressUDP) {
+            this.addressTCP = addressTCP;
+            this.addressUDP = addressUDP;
+            endpoint = "endpoint=" + Addressing.longToString(addressUDP);
+        }
+
+        void setFilter(final Filter filter) {
+            if ((filter.mask & Packet.TYPE_AUDIO) != 0 && publicationAudio == null) {
+                publicationAudio = aeron.addPublication(UDP.channel(endpoint, UDP.SIZE_TERM_AUDIO), UDP.STREAM_AUDIO);
+            }
+            for (int layer = 0; layer < UDP.COUNT_LAYERS; layer += 1) {
+                if ((filter.mask & Packet.TYPE_VIDEO) == 0 || (filter.layers & (1 << layer)) == 0 || publicationsVideo[layer] != null) continue;
+                publicationsVideo[layer] = aeron.addPublication(UDP.channel(endpoint, UDP.SIZE_TERM_VIDEO), UDP.streamVideo(layer));
+            }
+            this.filter = filter;
+        }
+
+        boolean accepts(final long sender, final byte type, final int layer) {
+            final Filter filter = this.filter;
+            return sender != addressUDP
+                && (type & filter.mask) != 0
+                && ((type & Packet.TYPE_AUDIO) != 0 || (filter.layers & (1 << layer)) != 0)
+                && (filter.senders.isEmpty() || filter.senders.contains(sender));
+        }
+
+        void close() {
+            if (publicationAudio != null) publicationAudio.close();
+            for (final Publication publicationVideo : publicationsVideo) if (publicationVideo != null) publicationVideo.close();
+        }
+    }
+
+    public static void main(final String[] arguments) throws Exception {
+        final MediaDriver mediaDriver = MediaDriver.launchEmbedded(driverContext());
+        final Aeron aeron = Aeron.connect(new Aeron.Context().aeronDirectoryName(mediaDriver.aeronDirectoryName()));
+        new Relay(aeron, Addressing.stringToLong(arguments[0]), Addressing.stringToLong(arguments[1]));
+    }
+}
@@ -0,0 +1,5 @@
+interface RemoteClock {
+    long UNKNOWN = Long.MIN_VALUE;
+
+    long toLocal(final long addressUDP, final long time);
+}
@@ -0,0 +1,137 @@
+import org.agrona.BitUtil;
+
+import java.util.Arrays;
+
+class RingBuffer<T> {
+    private static final Sequence[] SEQUENCES_EMPTY = new Sequence[0];
+
+    private final T[] array;
+    private final int mask;
+    private final int size;
+    private final WaitStrategy waitStrategy;
+
+    private final Sequence producerIndex = new Sequence(0);
+    private volatile Sequence[] consumerTicketToIndex = SEQUENCES_EMPTY;
+    private volatile Sequence[] consumerIndexes = SEQUENCES_EMPTY;
+    private long consumersMinimumIndexCached = 0;
+    private volatile long overruns = 0;
+
+    protected RingBuffer(final Factory<T> factory, final int size) {
+        this(factory, size, new WaitStrategy.Yielding());
+    }
+
+    @SuppressWarnings("unchecked")
+    protected RingBuffer(final Factory<T> factory, final int size, final WaitStrategy waitStrategy) {
+        if (!BitUtil.isPowerOfTwo(size)) throw new IllegalArgumentException("size=" + size);
+        array = (T[]) new Object[size];
+        mask = size - 1;
+        this.size = size;
+        this.waitStrategy = waitStrategy;
+        for (int index = 0; index < size; index += 1) array[index] = factory.factory();
+    }
+
+    private long consumersMinimumIndex(final long index) {
+        long minimum = index;
+        for (final Sequence sequence : consumerIndexes) minimum = Math.min(minimum, sequence.get());
+        return minimum;
+    }
+
+    public T claim() {
+        final long index = producerIndex.getPlain();
+        if (index - size >= consumersMinimumIndexCached) {
+            long minimum;
+            int attempts = 0;
+            if (index - size >= consumersMinimumIndex(index)) overruns += 1;
+            while (index - size >= (minimum = consumersMinimumIndex(index))) waitStrategy.idle(attempts++);
+            consumersMinimumIndexCached = minimum;
+        }
+        return array[(int) index & mask];
+    }
+
+    public T tryClaim() {
+        final long index = producerIndex.getPlain();
+        if (index - size >= consumersMinimumIndexCached) {
+            consumersMinimumIndexCached = consumersMinimumIndex(index);
+            if (index - size >= consumersMinimumIndexCached) {
+                overruns += 1;
+                return null;
+            }
+        }
+        return array[(int) index & mask];
+    }
+
+    public int remaining() {
+        final long index = producerIndex.getPlain();
+        consumersMinimumIndexCached = consumersMinimumIndex(index);
+        return (int) Math.max(0, size - (index - consumersMinimumIndexCached));
+    }
+
+    public void commit() {
+        producerIndex.set(producerIndex.getPlain() + 1);
+        waitStrategy.signal();
+    }
+
+    public T acquire(final int ticket) {
+        final long index = consumerTicketToIndex[ticket].getPlain();
+        if (index == producerIndex.get()) return null;
+        return array[(int) index & mask];
+    }
+
+    public int acquire(final int ticket, final int maxCount) {
+        return (int) Math.min(maxCount, producerIndex.get() - consumerTicketToIndex[ticket].getPlain());
+    }
+
+    public T get(final int ticket, final int offset) {
+        return array[(int) (consumerTicketToIndex[ticket].getPlain() + offset) & mask];
+    }
+
+    public void release(final int ticket) {
+        release(ticket, 1);
+    }
+
+    public void release(final int ticket, final int count) {
+        final Sequence sequence = consumerTicketToIndex[ticket];
+        sequence.set(sequence.getPlain() + count);
+        waitStrategy.signal();
+    }
+
+    public void await(final int ticket) {
+        int attempts = 0;
+        while (consumerTicketToIndex[ticket].getPlain() == producerIndex.get()) waitStrategy.idle(attempts++);
+    }
+
+    public synchronized int subscribe() {
+        final Sequence sequence = new Sequence(producerIndex.get());
+        int ticket = 0;
+        while (ticket < consumerTicketToIndex.length && consumerTicketToIndex[ticket] != null) ticket += 1;
+        final Sequence[] sequences = Arrays.copyOf(consumerTicketToIndex, Math.max(consumerTicketToIndex.length, ticket + 1));
+        sequences[ticket] = sequence;
+        consumerTicketToIndex = sequences;
+        final Sequence[] indexes = Arrays.copyOf(consumerIndexes, consumerIndexes.length + 1);
+        indexes[indexes.length - 1] = sequence;
+        consumerIndexes = indexes;
+        return ticket;
+    }
+
+    public synchronized void unsubscribe(final int ticket) {
+        if (ticket >= consumerTicketToIndex.length || consumerTicketToIndex[ticket] == null) return;
+        final Sequence sequence = consumerTicketToIndex[ticket];
+        final Sequence[] sequences = Arrays.copyOf(consumerTicketToIndex, consumerTicketToIndex.length);
+        sequences[ticket] = null;
+        int length = sequences.length;
+        while (length > 0 && sequences[length - 1] == null) length -= 1;
+        consumerTicketToIndex = Arrays.copyOf(sequences, length);
+        final Sequence[] indexes = new Sequence[consumerIndexes.length];
+        int count = 0;
+        for (final Sequence candidate : consumerIndexes) if (candidate != sequence) indexes[count++] = candidate;
+        consumerIndexes = Arrays.copyOf(indexes, count);
+        waitStrategy.signal();
+    }
+
+    public int size() { return size; }
+    public long overruns() { return overruns; }
+    public long occupancy() { return producerIndex.get() - consumersMinimumIndex(producerIndex.get()); }
+    public long lag(final int ticket) { return producerIndex.get() - consumerTicketToIndex[ticket].get(); }
+
+    public interface Factory<T> { T factory(); }
+}
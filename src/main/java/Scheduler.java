@@ -0,0 +1,123 @@
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.SleepingMillisIdleStrategy;
+import org.agrona.concurrent.YieldingIdleStrategy;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class Scheduler {
+    public static final Scheduler SHARED = new Scheduler(
+        Integer.getInteger("conference.threads", Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()))),
+        System.getProperty("conference.idle", "backoff")
+    );
+    
+    private final String idle;
+    private final Group[] groups;
+    private final Map<Agent, Group> agentToDedicated = new ConcurrentHashMap<>();
+    
+    public Scheduler(final int threads, final String idle) {
+        this.idle = idle;
+        groups = new Group[threads];
+        for (int index = 0; index < threads; index += 1) groups[index] = new Group("shared-" + index);
+    }
+    
+    public static IdleStrategy idleStrategy(final String name) {
+        switch (name) {
+            case "busy": return new BusySpinIdleStrategy();
+            case "yield": return new YieldingIdleStrategy();
+            case "sleep": return new SleepingMillisIdleStrategy(1);
+            default: return new BackoffIdleStrategy(100, 10, 1_000, 1_000_000);
+        }
+    }
+    
+    public void add(final Agent agent, final boolean dedicated) {
+        if (dedicated) {
+            final Group group = new Group(agent.roleName());
+            agentToDedicated.put(agent, group);
+            group.add(agent);
+            return;
+        }
+        Group group = groups[0];
+        for (final Group candidate : groups) if (candidate.size() < group.size()) group = candidate;
+        group.add(agent);
+    }
+    
+    public void remove(final Agent agent) {
+        final Group dedicated = agentToDedicated.remove(agent);
+        if (dedicated != null) {
+            dedicated.remove(agent);
+            dedicated.close();
+            return;
+        }
+        for (final Group group : groups) group.remove(agent);
+    }
+    
+    public void close() {
+        for (final Group group : groups) group.close();
+        for (final Group group : agentToDedicated.values()) group.close();
+    }
+    
+    private class Group implements Agent {
+        private final String roleName;
+        private final AgentRunner runner;
+        private volatile Agent[] agents = new Agent[0];
+        private volatile long cycles = 0;
+        private volatile Thread thread;
+        
+        Group(final String roleName) {
+            this.roleName = roleName;
+            runner = new AgentRunner(idleStrategy(idle), (throwable) -> Logging.of(Scheduler.class).warning(throwable.toString()), null, this);
+            AgentRunner.startOnThread(runner);
+        }
+        
+        int size() { return agents.length; }
+        
+        synchronized void add(final Agent agent) {
+            final Agent[] agents = Arrays.copyOf(this.agents, this.agents.length + 1);
+            agents[agents.length - 1] = agent;
+            agent.onStart();
+            this.agents = agents;
+        }
+        
+        void remove(final Agent agent) {
+            synchronized (this) {
+                final Agent[] agents = new Agent[this.agents.length];
+                int length = 0;
+                for (final Agent candidate : this.agents) if (candidate != agent) agents[length++] = candidate;
+                if (length == agents.length) return;
+                this.agents = Arrays.copyOf(agents, length);
+            }
+            if (Thread.currentThread() != thread && !runner.isClosed()) {
+                final long cycle = cycles;
+                while (cycles == cycle && thread != null && thread.isAlive()) Thread.yield();
+            }
+            agent.onClose();
+        }
+        
+        void close() {
+            runner.close();
+        }
+        
+        @Override public void onStart() { thread = Thread.currentThread(); }
+        
+        @Override public int doWork() throws Exception {
+            int work = 0;
+            try {
+                for (final Agent agent : agents) {
+                    try { work += agent.doWork(); }
+                    catch (final Exception exception) { Logging.of(Scheduler.class).warning(agent.roleName() + " " + exception); }
+                }
+            } finally {
+                cycles += 1;
+            }
+            return work;
+        }
+        
+        @Override public String roleName() { return roleName; }
+    }
+}
@@ -0,0 +1,22 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+abstract class SequencePadding { long p01, p02, p03, p04, p05, p06, p07; }
+
+abstract class SequenceValue extends SequencePadding { volatile long value; }
+
+class Sequence extends SequenceValue {
+    private static final VarHandle VALUE;
+    static {
+        try { VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class); }
+        catch (ReflectiveOperationException exception) { throw new ExceptionInInitializerError(exception); }
+    }
+
+    long p11, p12, p13, p14, p15, p16, p17;
+
+    Sequence(final long value) { VALUE.setRelease(this, value); }
+
+    public long get() { return (long) VALUE.getAcquire(this); }
+    public long getPlain() { return (long) VALUE.get(this); }
+    public void set(final long value) { VALUE.setRelease(this, value); }
+}
@@ -0,0 +1,107 @@
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import javax.sound.sampled.*;
+import java.nio.ByteOrder;
+
+class Speaker extends Consumer {
+    private static final int MILLISECONDS_FRAME = 20;
+    
+    private final Mixer mixer;
+    private final AudioSink sink;
+    private final AudioCodec codec;
+    private final RemoteClock clock;
+    private final float sampleRate;
+    private final ByteOrder byteOrder;
+    private final short[] frame;
+    private final Long2ObjectHashMap<AudioCodec.Decoder> addressUDPToDecoder = new Long2ObjectHashMap<>();
+    private final LongHashSet addressesUDP = new LongHashSet();
+    private final UnsafeBuffer decoded = new UnsafeBuffer(new byte[0]);
+    private short[] samples = new short[0];
+    final Histogram histogramLatency = new Histogram();
+    
+    public Speaker(final AudioFormat audioFormat, final AudioCodec codec, final RemoteClock clock) throws LineUnavailableException {
+        this(audioFormat, codec, new LineSink(audioFormat, (int) (audioFormat.getSampleRate() * MILLISECONDS_FRAME * 3 / 1000)), clock);
+    }
+    
+    public Speaker(final AudioFormat audioFormat, final AudioCodec codec, final AudioSink sink, final RemoteClock clock) {
+        super(0, Packet.TYPE_AUDIO);
+        this.sink = sink;
+        this.codec = codec;
+        this.clock = clock;
+        sampleRate = audioFormat.getSampleRate();
+        byteOrder = audioFormat.isBigEndian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        mixer = new SummingMixer(audioFormat);
+        frame = new short[(int) (audioFormat.getSampleRate() * MILLISECONDS_FRAME / 1000)];
+        start();
+    }
+    
+    @Override protected int run() {
+        int work = super.run();
+        while (sink.writable() >= frame.length) {
+            mixer.mix(frame, 0, frame.length);
+            sink.write(frame, 0, frame.length);
+            work += 1;
+        }
+        return work;
+    }
+    
+    @Override protected void consume(final Packet packet) {
+        final long timeArrival = System.nanoTime();
+        final long timeLocal = clock.toLocal(packet.addressUDP(), packet.time());
+        if (timeLocal != RemoteClock.UNKNOWN) histogramLatency.record(timeArrival - timeLocal);
+        if ((packet.flags() & Packet.FLAG_COMFORT_NOISE) != 0) {
+            synchronized (this) { addressesUDP.add(packet.addressUDP()); }
+            mixer.silence(packet.addressUDP(), packet.getShort(Packet.SIZE_HEADER));
+            return;
+        }
+        final int capacity = packet.length() * 8 / codec.bitsPerSample();
+        if (samples.length < capacity) {
+            samples = new short[capacity];
+            decoded.wrap(new byte[capacity * 2]);
+        }
+        final int count = decoder(packet.addressUDP()).decode(packet, Packet.SIZE_HEADER, packet.length(), samples, 0);
+        for (int index = 0; index < count; index += 1) decoded.putShort(index * 2, samples[index], byteOrder);
+        mixer.write(packet.addressUDP(), decoded, 0, count * 2, packet.time(), timeArrival);
+    }
+
+    private synchronized AudioCodec.Decoder decoder(final long addressUDP) {
+        AudioCodec.Decoder decoder = addressUDPToDecoder.get(addressUDP);
+        if (decoder == null) {
+            decoder = codec.decoder();
+            addressUDPToDecoder.put(addressUDP, decoder);
+            addressesUDP.add(addressUDP);
+        }
+        return decoder;
+    }
+
+    public void setGain(final long addressUDP, final float gain) {
+        mixer.setGain(addressUDP, gain);
+    }
+
+    public long timePlayout(final long addressUDP) {
+        final long time = mixer.timePlayout(addressUDP);
+        if (time == RemoteClock.UNKNOWN) return time;
+        return time - (long) (sink.buffered() * 1_000_000_000L / sampleRate);
+    }
+
+    public void removeAddressUDP(final long addressUDP) {
+        mixer.remove(addressUDP);
+        synchronized (this) {
+            addressUDPToDecoder.remove(addressUDP);
+            addressesUDP.remove(addressUDP);
+        }
+    }
+
+    public void clear() {
+        final Long[] addressesUDP;
+        synchronized (this) { addressesUDP = this.addressesUDP.toArray(new Long[0]); }
+        for (final long addressUDP : addressesUDP) removeAddressUDP(addressUDP);
+    }
+    
+    @Override protected void stop() {
+        super.stop();
+        sink.close();
+    }
+}
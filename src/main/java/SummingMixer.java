@@ -0,0 +1,97 @@
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.Arrays;
+
+class SummingMixer implements Mixer {
+    private static final float GAIN_RELEASE = 1.02f;
+
+    private final AudioFormat audioFormat;
+    private final Long2ObjectHashMap<Channel> addressUDPToChannel = new Long2ObjectHashMap<>();
+    private Channel[] channels = new Channel[0];
+    private int[] accumulator = new int[0];
+    private short[] scratch = new short[0];
+    private float gainLimiter = 1.0f;
+    private long countLimited = 0;
+
+    public SummingMixer(final AudioFormat audioFormat) {
+        this.audioFormat = audioFormat;
+    }
+
+    @Override public synchronized void write(final long addressUDP, final DirectBuffer buffer, final int offset, final int length, final long time, final long timeArrival) {
+        Channel channel = addressUDPToChannel.get(addressUDP);
+        if (channel == null) {
+            channel = new Channel(addressUDP, new JitterBuffer(audioFormat, 20, 400));
+            addressUDPToChannel.put(addressUDP, channel);
+            channels = Arrays.copyOf(channels, channels.length + 1);
+            channels[channels.length - 1] = channel;
+        }
+        channel.jitterBuffer.write(buffer, offset, length, time, timeArrival);
+    }
+
+    @Override public synchronized void mix(final short[] output, final int offset, final int count) {
+        if (accumulator.length < count) {
+            accumulator = new int[count];
+            scratch = new short[count];
+        }
+        Arrays.fill(accumulator, 0, count, 0);
+        for (final Channel channel : channels) {
+            channel.jitterBuffer.read(scratch, 0, count);
+            final int gain = channel.gain;
+            for (int index = 0; index < count; index += 1) accumulator[index] += scratch[index] * gain >> 8;
+        }
+
+        int peak = 0;
+        for (int index = 0; index < count; index += 1) peak = Math.max(peak, Math.abs(accumulator[index]));
+        final float gainPeak = peak * gainLimiter > Short.MAX_VALUE ? (float) Short.MAX_VALUE / peak : 1.0f;
+        if (gainPeak < gainLimiter) {
+            gainLimiter = gainPeak;
+            countLimited += 1;
+        } else {
+            gainLimiter = Math.min(1.0f, Math.min(gainPeak, gainLimiter * GAIN_RELEASE));
+        }
+        for (int index = 0; index < count; index += 1) {
+            final int sample = (int) (accumulator[index] * gainLimiter);
+            output[offset + index] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+        }
+    }
+
+    @Override public synchronized void silence(final long addressUDP, final int level) {
+        final Channel channel = addressUDPToChannel.get(addressUDP);
+        if (channel != null) channel.jitterBuffer.silence(level);
+    }
+
+    @Override public synchronized void setGain(final long addressUDP, final float gain) {
+        final Channel channel = addressUDPToChannel.get(addressUDP);
+        if (channel != null) channel.gain = (int) (gain * 256);
+    }
+
+    @Override public synchronized long timePlayout(final long addressUDP) {
+        final Channel channel = addressUDPToChannel.get(addressUDP);
+        return channel == null ? RemoteClock.UNKNOWN : channel.jitterBuffer.timePlayout();
+    }
+
+    @Override public synchronized void remove(final long addressUDP) {
+        final Channel channel = addressUDPToChannel.remove(addressUDP);
+        if (channel == null) return;
+        final Channel[] channels = new Channel[this.channels.length - 1];
+        int length = 0;
+        for (final Channel candidate : this.channels) if (candidate != channel) channels[length++] = candidate;
+        this.channels = channels;
+    }
+
+    public synchronized int size() { return channels.length; }
+    public synchronized long countLimited() { return countLimited; }
+
+    private static class Channel {
+        final long addressUDP;
+        final JitterBuffer jitterBuffer;
+        int gain = 256;
+
+        Channel(final long addressUDP, final JitterBuffer jitterBuffer) {
+            this.addressUDP = addressUDP;
+            this.jitterBuffer = jitterBuffer;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+class SyntheticVideo implements VideoSource {
+    private final int width;
+    private final int height;
+    private final int noise;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final int[] background;
+    private long frame = 0;
+    private int seed = 0x2545F491;
+
+    public SyntheticVideo(final int width, final int height, final int noise) {
+        this.width = width;
+        this.height = height;
+        this.noise = noise;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        background = new int[width * height];
+        for (int y = 0; y < height; y += 1) {
+            for (int x = 0; x < width; x += 1) {
+                final int shade = 96 + (y * 64 / height) + (((x >> 3) + (y >> 3)) & 1) * 8;
+                background[y * width + x] = (shade / 2 << 16) | (shade << 8) | Math.min(255, shade + 32);
+            }
+        }
+    }
+
+    @Override public BufferedImage next() {
+        final double sway = Math.sin(frame * 0.05) * width * 0.03;
+        final double centerX = width / 2.0 + sway;
+        final double centerY = height * 0.55;
+        final double radiusX = width * 0.22;
+        final double radiusY = height * 0.32;
+        final double mouth = 0.02 + 0.04 * Math.abs(Math.sin(frame * 0.4));
+
+        for (int y = 0; y < height; y += 1) {
+            for (int x = 0; x < width; x += 1) {
+                final double dx = (x - centerX) / radiusX;
+                final double dy = (y - centerY) / radiusY;
+                int pixel = background[y * width + x];
+                if (dx * dx + dy * dy <= 1) {
+                    final double mx = (x - centerX) / (radiusX * 0.4);
+                    final double my = (y - (centerY + radiusY * 0.45)) / (height * mouth);
+                    pixel = mx * mx + my * my <= 1 ? 0x501818 : 0xE0B090 - ((int) (dy * 24) & 0x1F) * 0x010101;
+                }
+                if (noise > 0) {
+                    seed ^= seed << 13; seed ^= seed >>> 17; seed ^= seed << 5;
+                    final int delta = Math.floorMod(seed, noise * 2 + 1) - noise;
+                    pixel = clamp((pixel >> 16 & 0xFF) + delta) << 16 | clamp((pixel >> 8 & 0xFF) + delta) << 8 | clamp((pixel & 0xFF) + delta);
+                }
+                pixels[y * width + x] = pixel;
+            }
+        }
+        frame += 1;
+        return image;
+    }
+
+    private static int clamp(final int value) { return Math.max(0, Math.min(255, value)); }
+}
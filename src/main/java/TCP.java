@@ -0,0 +1,266 @@
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+class TCP {
+    public static final byte KIND_ONEWAY = 0;
+    public static final byte KIND_REQUEST = 1;
+    public static final byte KIND_REPLY = 2;
+    
+    private static final int OFFSET_LENGTH = 0;
+    private static final int OFFSET_CORRELATION = 4;
+    private static final int OFFSET_KIND = 12;
+    private static final int SIZE_HEADER = 13;
+    private static final int SIZE_READ = 1 << 16;
+    private static final int SIZE_FRAME_MAXIMUM = 1 << 24;
+    
+    static class Connection {
+        private final SocketChannel channel;
+        private final ExpandableDirectByteBuffer outbound = new ExpandableDirectByteBuffer(1 << 12);
+        private ByteBuffer inbound = ByteBuffer.allocateDirect(SIZE_READ);
+        private final UnsafeBuffer inboundView = new UnsafeBuffer(inbound);
+        private int outboundFlushed = 0;
+        private int outboundPending = 0;
+        
+        Connection(final SocketChannel channel) {
+            this.channel = channel;
+        }
+        
+        synchronized void append(final long correlation, final byte kind, final DirectBuffer buffer, final int length) {
+            outbound.putInt(outboundPending + OFFSET_LENGTH, SIZE_HEADER + length);
+            outbound.putLong(outboundPending + OFFSET_CORRELATION, correlation);
+            outbound.putByte(outboundPending + OFFSET_KIND, kind);
+            outbound.putBytes(outboundPending + SIZE_HEADER, buffer, 0, length);
+            outboundPending += SIZE_HEADER + length;
+        }
+        
+        synchronized int flush() throws IOException {
+            if (outboundPending == outboundFlushed || !channel.isConnected()) return 0;
+            final ByteBuffer byteBuffer = outbound.byteBuffer();
+            byteBuffer.limit(outboundPending).position(outboundFlushed);
+            final int written = channel.write(byteBuffer);
+            outboundFlushed += written;
+            if (outboundFlushed == outboundPending) outboundFlushed = outboundPending = 0;
+            return written;
+        }
+        
+        void grow(final int length) {
+            final ByteBuffer inbound = ByteBuffer.allocateDirect(BitUtil.findNextPositivePowerOfTwo(length));
+            this.inbound.flip();
+            inbound.put(this.inbound);
+            this.inbound = inbound;
+            inboundView.wrap(inbound);
+        }
+    }
+    
+    static class Node extends Daemon {
+        private final Handler handler;
+        private final Selector selector;
+        private final ServerSocketChannel serverChannel;
+        private final Map<Long, Connection> addressTCPToConnection = new ConcurrentHashMap<>();
+        private final Queue<Connection> connectionsNew = new ConcurrentLinkedQueue<>();
+        private final Map<Long, CompletableFuture<Packet>> correlationToReply = new ConcurrentHashMap<>();
+        private final AtomicLong correlationNext = new AtomicLong(1);
+        private final Packet packet = new Packet();
+        private volatile Connection[] connections = new Connection[0];
+        
+        public Node(final long addressTCP, final Handler handler) throws IOException {
+            super(0);
+            this.handler = handler;
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(Addressing.longToInetSocketAddress(addressTCP));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            Logging.of(this).info("addressTCP=" + Addressing.longToPort(addressTCP));
+            start();
+        }
+        
+        public CompletableFuture<Packet> request(final long addressTCP, final Packet packet) throws IOException {
+            final long correlation = correlationNext.getAndIncrement();
+            final CompletableFuture<Packet> future = new CompletableFuture<>();
+            correlationToReply.put(correlation, future);
+            future.whenComplete((reply, throwable) -> correlationToReply.remove(correlation));
+            connection(addressTCP).append(correlation, KIND_REQUEST, packet, packet.size());
+            return future;
+        }
+        
+        public void send(final long addressTCP, final Packet packet) throws IOException {
+            connection(addressTCP).append(0, KIND_ONEWAY, packet, packet.size());
+        }
+        
+        public void multicast(final Collection<Long> addressTCPs, final Packet packet) throws IOException {
+            for (final long addressTCP : addressTCPs) send(addressTCP, packet);
+        }
+        
+        public void reply(final Connection connection, final long correlation, final Packet packet) {
+            connection.append(correlation, KIND_REPLY, packet, packet.size());
+        }
+        
+        private Connection connection(final long addressTCP) throws IOException {
+            Connection connection = addressTCPToConnection.get(addressTCP);
+            if (connection != null) return connection;
+            synchronized (addressTCPToConnection) {
+                connection = addressTCPToConnection.get(addressTCP);
+                if (connection != null) return connection;
+                final SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.connect(Addressing.longToInetSocketAddress(addressTCP));
+                connection = new Connection(channel);
+                addressTCPToConnection.put(addressTCP, connection);
+                connectionsNew.add(connection);
+            }
+            return connection;
+        }
+        
+        @Override protected int run() {
+            int work = 0;
+            Connection connectionNew;
+            while ((connectionNew = connectionsNew.poll()) != null) {
+                try { connectionNew.channel.register(selector, connectionNew.channel.isConnected() ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, connectionNew); }
+                catch (IOException exception) { close(connectionNew, exception); continue; }
+                final Connection[] connections = Arrays.copyOf(this.connections, this.connections.length + 1);
+                connections[connections.length - 1] = connectionNew;
+                this.connections = connections;
+                work += 1;
+            }
+            
+            try {
+                if (selector.selectNow() > 0) {
+                    final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                    while (iterator.hasNext()) {
+                        final SelectionKey key = iterator.next();
+                        iterator.remove();
+                        work += 1;
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accept();
+                        else if (key.isConnectable()) connect(key);
+                        else if (key.isReadable()) read((Connection) key.attachment());
+                    }
+                }
+            } catch (IOException exception) {
+                Logging.of(this).warning(exception.toString());
+            }
+            
+            for (final Connection connection : connections) {
+                try { work += connection.flush(); }
+                catch (IOException exception) { close(connection, exception); }
+            }
+            return work;
+        }
+        
+        private void accept() throws IOException {
+            final SocketChannel channel = serverChannel.accept();
+            if (channel == null) return;
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            connectionsNew.add(new Connection(channel));
+        }
+        
+        private void connect(final SelectionKey key) {
+            final Connection connection = (Connection) key.attachment();
+            try {
+                if (connection.channel.finishConnect()) key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException exception) {
+                close(connection, exception);
+            }
+        }
+        
+        private void read(final Connection connection) {
+            try {
+                if (connection.channel.read(connection.inbound) < 0) {
+                    close(connection, null);
+                    return;
+                }
+            } catch (IOException exception) {
+                close(connection, exception);
+                return;
+            }
+            
+            int offset = 0;
+            while (connection.inbound.position() - offset >= SIZE_HEADER) {
+                final int length = connection.inboundView.getInt(offset + OFFSET_LENGTH);
+                if (length < SIZE_HEADER || length > SIZE_FRAME_MAXIMUM) {
+                    Logging.of(this).warning("length=" + length);
+                    close(connection, null);
+                    return;
+                }
+                if (connection.inbound.position() - offset < length) break;
+                final long correlation = connection.inboundView.getLong(offset + OFFSET_CORRELATION);
+                final byte kind = connection.inboundView.getByte(offset + OFFSET_KIND);
+                if (Packet.valid(connection.inboundView, offset + SIZE_HEADER, length - SIZE_HEADER)) {
+                    packet.wrap(connection.inboundView, offset + SIZE_HEADER, length - SIZE_HEADER);
+                    dispatch(connection, correlation, kind);
+                } else {
+                    Logging.of(this).warning("invalid packet length=" + length);
+                }
+                offset += length;
+            }
+            if (offset > 0) {
+                connection.inbound.limit(connection.inbound.position()).position(offset);
+                connection.inbound.compact();
+            }
+            if (connection.inbound.position() >= SIZE_HEADER) {
+                final int length = connection.inboundView.getInt(OFFSET_LENGTH);
+                if (length > connection.inbound.capacity()) connection.grow(length);
+            }
+        }
+        
+        private void dispatch(final Connection connection, final long correlation, final byte kind) {
+            if (kind == KIND_REPLY) {
+                final CompletableFuture<Packet> future = correlationToReply.get(correlation);
+                if (future == null) return;
+                final Packet reply = new Packet();
+                reply.wrap(new byte[packet.size()]);
+                reply.putBytes(0, packet, 0, packet.size());
+                future.complete(reply);
+                return;
+            }
+            try { handler.handle(connection, kind == KIND_REQUEST ? correlation : 0, packet); }
+            catch (Exception exception) { Logging.of(this).warning(exception.toString()); }
+        }
+        
+        private void close(final Connection connection, final Exception exception) {
+            if (exception != null) Logging.of(this).warning(exception.toString());
+            try { connection.channel.close(); } catch (IOException ignored) {}
+            addressTCPToConnection.values().remove(connection);
+            final Connection[] connections = new Connection[this.connections.length];
+            int length = 0;
+            for (final Connection candidate : this.connections) if (candidate != connection) connections[length++] = candidate;
+            this.connections = Arrays.copyOf(connections, length);
+        }
+        
+        @Override public void onClose() {
+            for (final Connection connection : connections) {
+                try { connection.channel.close(); } catch (IOException ignored) {}
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException exception) {
+                Logging.of(this).warning(exception.toString());
+            }
+        }
+    }
+
+    public interface Handler { void handle(final Connection connection, final long correlation, final Packet packet) throws IOException; }
+}
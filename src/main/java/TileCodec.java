@@ -0,0 +1,250 @@
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+class TileCodec implements VideoCodec {
+    public static final byte TYPE_KEY = 1;
+    public static final byte TYPE_DELTA = 2;
+
+    private static final int OFFSET_TYPE = 0;
+    private static final int OFFSET_WIDTH = 1;
+    private static final int OFFSET_HEIGHT = 3;
+    private static final int OFFSET_SIZE_TILE = 5;
+    private static final int OFFSET_SHIFT = 6;
+    private static final int OFFSET_FRAME = 7;
+    private static final int OFFSET_COUNT_TILES = 11;
+    private static final int OFFSET_LENGTH_RAW = 15;
+    public static final int SIZE_HEADER = 19;
+    public static final int SIZE_DIMENSION_MAXIMUM = 4096;
+    public static final int SHIFT_MAXIMUM = 6;
+
+    private final int sizeTile;
+    private final int framesPerKeyframe;
+    private final int threshold;
+    private volatile int shift;
+
+    public TileCodec() {
+        this(16, 60, 12, 2);
+    }
+
+    public TileCodec(final int sizeTile, final int framesPerKeyframe, final int threshold, final int shift) {
+        this.sizeTile = sizeTile;
+        this.framesPerKeyframe = framesPerKeyframe;
+        this.threshold = threshold;
+        this.shift = shift;
+    }
+
+    public void setShift(final int shift) { this.shift = Math.max(0, Math.min(SHIFT_MAXIMUM, shift)); }
+    public int shift() { return shift; }
+
+    @Override public Encoder encoder(final int width, final int height) { return new TileEncoder(width, height); }
+    @Override public Decoder decoder() { return new TileDecoder(); }
+
+    @Override public boolean isKeyframe(final DirectBuffer buffer, final int offset, final int length) {
+        return length >= SIZE_HEADER && buffer.getByte(offset + OFFSET_TYPE) == TYPE_KEY;
+    }
+
+    private static int[] pixels(final BufferedImage image, final int[] scratch) {
+        final int type = image.getType();
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) && image.getRaster().getDataBuffer() instanceof DataBufferInt) {
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), scratch, 0, image.getWidth());
+    }
+
+    private class TileEncoder implements Encoder {
+        private final int width;
+        private final int height;
+        private final int columns;
+        private final int rows;
+        private final int[] reference;
+        private final int[] scratch;
+        private final byte[] raw;
+        private final byte[] compressed;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private int frame = 0;
+        private volatile boolean keyframeRequested = true;
+        private volatile int degradation = 0;
+
+        TileEncoder(final int width, final int height) {
+            this.width = width;
+            this.height = height;
+            columns = (width + sizeTile - 1) / sizeTile;
+            rows = (height + sizeTile - 1) / sizeTile;
+            reference = new int[width * height];
+            scratch = new int[width * height];
+            raw = new byte[columns * rows * 2 + width * height * 3];
+            compressed = new byte[raw.length + (raw.length >> 6) + 64];
+        }
+
+        @Override public void requestKeyframe() { keyframeRequested = true; }
+        @Override public void setQuality(final int degradation) { this.degradation = degradation; }
+
+        @Override public int encode(final BufferedImage image, final MutableDirectBuffer buffer) {
+            final int[] pixels = pixels(image, scratch);
+            final int shift = Math.min(SHIFT_MAXIMUM, TileCodec.this.shift + degradation);
+            final boolean key = keyframeRequested || frame % framesPerKeyframe == 0;
+            final int mask = ((0xFF << shift) & 0xFF) * 0x010101;
+            int position = 0;
+            int countTiles = 0;
+
+            for (int row = 0; row < rows; row += 1) {
+                for (int column = 0; column < columns; column += 1) {
+                    final int x0 = column * sizeTile;
+                    final int y0 = row * sizeTile;
+                    final int x1 = Math.min(width, x0 + sizeTile);
+                    final int y1 = Math.min(height, y0 + sizeTile);
+                    if (!key && !changed(pixels, mask, x0, y0, x1, y1)) continue;
+
+                    if (!key) {
+                        final int index = row * columns + column;
+                        raw[position++] = (byte) (index >> 8);
+                        raw[position++] = (byte) index;
+                    }
+                    for (int y = y0; y < y1; y += 1) {
+                        int left = 0;
+                        for (int x = x0; x < x1; x += 1) {
+                            final int pixel = pixels[y * width + x] & mask;
+                            reference[y * width + x] = pixel;
+                            raw[position++] = (byte) (((pixel >> 16) & 0xFF) - ((left >> 16) & 0xFF) >> shift);
+                            raw[position++] = (byte) (((pixel >> 8) & 0xFF) - ((left >> 8) & 0xFF) >> shift);
+                            raw[position++] = (byte) ((pixel & 0xFF) - (left & 0xFF) >> shift);
+                            left = pixel;
+                        }
+                    }
+                    countTiles += 1;
+                }
+            }
+
+            deflater.reset();
+            deflater.setInput(raw, 0, position);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) length += deflater.deflate(compressed, length, compressed.length - length);
+
+            buffer.putByte(OFFSET_TYPE, key ? TYPE_KEY : TYPE_DELTA);
+            buffer.putShort(OFFSET_WIDTH, (short) width);
+            buffer.putShort(OFFSET_HEIGHT, (short) height);
+            buffer.putByte(OFFSET_SIZE_TILE, (byte) sizeTile);
+            buffer.putByte(OFFSET_SHIFT, (byte) shift);
+            buffer.putInt(OFFSET_FRAME, frame);
+            buffer.putInt(OFFSET_COUNT_TILES, countTiles);
+            buffer.putInt(OFFSET_LENGTH_RAW, position);
+            buffer.putBytes(SIZE_HEADER, compressed, 0, length);
+
+            if (key) keyframeRequested = false;
+            frame += 1;
+            return SIZE_HEADER + length;
+        }
+
+        private boolean changed(final int[] pixels, final int mask, final int x0, final int y0, final int x1, final int y1) {
+            final int limit = threshold * (x1 - x0) * (y1 - y0);
+            int sum = 0;
+            for (int y = y0; y < y1; y += 1) {
+                for (int x = x0; x < x1; x += 1) {
+                    final int a = pixels[y * width + x] & mask;
+                    final int b = reference[y * width + x];
+                    sum += Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF))
+                        + Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF))
+                        + Math.abs((a & 0xFF) - (b & 0xFF));
+                }
+                if (sum > limit) return true;
+            }
+            return false;
+        }
+    }
+
+    private static class TileDecoder implements Decoder {
+        private final Inflater inflater = new Inflater();
+        private BufferedImage image;
+        private int[] pixels;
+        private byte[] compressed = new byte[0];
+        private byte[] raw = new byte[0];
+        private int frameNext = -1;
+
+        @Override public BufferedImage decode(final DirectBuffer buffer, final int offset, final int length) {
+            if (length < SIZE_HEADER) return null;
+            final byte type = buffer.getByte(offset + OFFSET_TYPE);
+            final int width = buffer.getShort(offset + OFFSET_WIDTH);
+            final int height = buffer.getShort(offset + OFFSET_HEIGHT);
+            final int sizeTile = buffer.getByte(offset + OFFSET_SIZE_TILE);
+            final int shift = buffer.getByte(offset + OFFSET_SHIFT);
+            final int frame = buffer.getInt(offset + OFFSET_FRAME);
+            final int countTiles = buffer.getInt(offset + OFFSET_COUNT_TILES);
+            final int lengthRaw = buffer.getInt(offset + OFFSET_LENGTH_RAW);
+
+            if (width < 1 || width > SIZE_DIMENSION_MAXIMUM || height < 1 || height > SIZE_DIMENSION_MAXIMUM
+                || sizeTile < 1 || shift < 0 || shift > SHIFT_MAXIMUM) {
+                return invalid("width=" + width + " height=" + height + " sizeTile=" + sizeTile + " shift=" + shift);
+            }
+            final int columns = (width + sizeTile - 1) / sizeTile;
+            final int tiles = columns * ((height + sizeTile - 1) / sizeTile);
+            if (countTiles < 0 || countTiles > tiles || lengthRaw < 0 || lengthRaw > tiles * 2 + width * height * 3) {
+                return invalid("countTiles=" + countTiles + " lengthRaw=" + lengthRaw);
+            }
+            if (type != TYPE_KEY && type != TYPE_DELTA) return invalid("type=" + type);
+
+            if (type == TYPE_DELTA && (image == null || frame != frameNext)) return null;
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                if (type != TYPE_KEY) return null;
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            }
+
+            final int lengthCompressed = length - SIZE_HEADER;
+            if (compressed.length < lengthCompressed) compressed = new byte[lengthCompressed];
+            if (raw.length < lengthRaw) raw = new byte[lengthRaw];
+            buffer.getBytes(offset + SIZE_HEADER, compressed, 0, lengthCompressed);
+            inflater.reset();
+            inflater.setInput(compressed, 0, lengthCompressed);
+            try {
+                int position = 0;
+                while (position < lengthRaw && !inflater.finished()) {
+                    final int count = inflater.inflate(raw, position, lengthRaw - position);
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                    position += count;
+                }
+                if (position != lengthRaw) { frameNext = -1; return null; }
+            } catch (DataFormatException exception) {
+                return invalid(exception.toString());
+            }
+
+            final int bias = shift > 0 ? 1 << (shift - 1) : 0;
+            int position = 0;
+            for (int tile = 0; tile < countTiles; tile += 1) {
+                final int index;
+                if (type == TYPE_KEY) index = tile;
+                else if (position + 2 > lengthRaw) return invalid("tile=" + tile + " position=" + position);
+                else index = ((raw[position++] & 0xFF) << 8) | (raw[position++] & 0xFF);
+                if (index >= tiles) return invalid("index=" + index + " tiles=" + tiles);
+                final int x0 = (index % columns) * sizeTile;
+                final int y0 = (index / columns) * sizeTile;
+                final int x1 = Math.min(width, x0 + sizeTile);
+                final int y1 = Math.min(height, y0 + sizeTile);
+                if (position + (x1 - x0) * (y1 - y0) * 3 > lengthRaw) return invalid("tile=" + tile + " position=" + position);
+                for (int y = y0; y < y1; y += 1) {
+                    int r = 0, g = 0, b = 0;
+                    for (int x = x0; x < x1; x += 1) {
+                        r = (r + raw[position++]) & (0xFF >> shift);
+                        g = (g + raw[position++]) & (0xFF >> shift);
+                        b = (b + raw[position++]) & (0xFF >> shift);
+                        pixels[y * width + x] = ((r << shift | bias) << 16) | ((g << shift | bias) << 8) | (b << shift | bias);
+                    }
+                }
+            }
+            frameNext = frame + 1;
+            return image;
+        }
+
+        private BufferedImage invalid(final String reason) {
+            Logging.of(TileCodec.class).warning(reason);
+            frameNext = -1;
+            return null;
+        }
+    }
+}
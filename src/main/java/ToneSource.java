@@ -0,0 +1,49 @@
+import javax.sound.sampled.AudioFormat;
+import java.util.SplittableRandom;
+
+class ToneSource implements AudioSource {
+    private static final int MILLISECONDS_MAXIMUM = 100;
+
+    private static final int AMPLITUDE_NOISE = 20;
+
+    private final float sampleRate;
+    private final boolean bigEndian;
+    private final double frequency;
+    private final long samplesTalk;
+    private final long samplesPeriod;
+    private final SplittableRandom random = new SplittableRandom(1);
+    private final long timeStart = System.nanoTime();
+    private long samplesRead = 0;
+
+    public ToneSource(final AudioFormat audioFormat, final double frequency) {
+        this(audioFormat, frequency, 1_000, 0);
+    }
+
+    public ToneSource(final AudioFormat audioFormat, final double frequency, final int millisecondsTalk, final int millisecondsPause) {
+        if (audioFormat.getSampleSizeInBits() != 16 || audioFormat.getChannels() != 1) throw new IllegalArgumentException(audioFormat.toString());
+        sampleRate = audioFormat.getSampleRate();
+        bigEndian = audioFormat.isBigEndian();
+        this.frequency = frequency;
+        samplesTalk = (long) (sampleRate * millisecondsTalk / 1000);
+        samplesPeriod = (long) (sampleRate * (millisecondsTalk + millisecondsPause) / 1000);
+    }
+
+    @Override public int available() {
+        final long due = (long) ((System.nanoTime() - timeStart) * (double) sampleRate / 1_000_000_000L) - samplesRead;
+        return (int) Math.min(due, sampleRate * MILLISECONDS_MAXIMUM / 1000) * 2;
+    }
+
+    @Override public void read(final byte[] bytes, final int offset, final int length) {
+        for (int index = 0; index < length / 2; index += 1) {
+            final short sample = samplesRead % samplesPeriod < samplesTalk
+                ? (short) (8000 * Math.sin(2 * Math.PI * frequency * samplesRead / sampleRate))
+                : (short) random.nextInt(-AMPLITUDE_NOISE, AMPLITUDE_NOISE + 1);
+            final int position = offset + index * 2;
+            bytes[bigEndian ? position : position + 1] = (byte) (sample >> 8);
+            bytes[bigEndian ? position + 1 : position] = (byte) sample;
+            samplesRead += 1;
+        }
+    }
+
+    @Override public void close() {}
+}
@@ -0,0 +1 @@
+class Tuple<A, B> { A first; B second; public Tuple(A a, B b) { first = a; second = b; }}
@@ -0,0 +1,456 @@
+import io.aeron.Aeron;
+import io.aeron.FragmentAssembler;
+import io.aeron.Image;
+import io.aeron.Publication;
+import io.aeron.Subscription;
+import io.aeron.logbuffer.Header;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+class UDP {
+    public static final int STREAM_AUDIO = 1;
+    public static final int STREAM_VIDEO = 2;
+    public static final int SIZE_TERM_AUDIO = 1 << 16;
+    public static final int SIZE_TERM_VIDEO = 1 << 21;
+    public static final int COUNT_LAYERS = 3;
+    
+    static int streamVideo(final int layer) {
+        return STREAM_VIDEO + layer;
+    }
+    
+    static String channel(final String parameters, final int sizeTerm) {
+        return "aeron:udp?" + parameters + "|term-length=" + sizeTerm;
+    }
+    
+    static class Broadcaster extends Consumer {
+        public enum Policy { RETRY, DROP_OLDEST, NEVER_DROP }
+        
+        public enum Outcome {
+            SENT, NOT_CONNECTED, BACK_PRESSURED, ADMIN_ACTION, CLOSED, MAX_POSITION_EXCEEDED,
+            DROPPED_AUDIO, DROPPED_VIDEO, SUPERSEDED_VIDEO, PARITY;
+            
+            static Outcome of(final long result) {
+                if (result > 0) return SENT;
+                if (result == Publication.NOT_CONNECTED) return NOT_CONNECTED;
+                if (result == Publication.BACK_PRESSURED) return BACK_PRESSURED;
+                if (result == Publication.ADMIN_ACTION) return ADMIN_ACTION;
+                if (result == Publication.CLOSED) return CLOSED;
+                return MAX_POSITION_EXCEEDED;
+            }
+        }
+        
+        private static final Outcome[] OUTCOMES = Outcome.values();
+        private static final long NANOS_PARITY_DELAY = 5_000_000L;
+        
+        private final long addressUDP;
+        private final Publication publicationAudio;
+        private final Publication[] publicationsVideo = new Publication[COUNT_LAYERS];
+        private final Policy policyAudio;
+        private final Policy policyVideo;
+        private final long nanosRetry;
+        private final IntConsumer onVideoDropped;
+        private final ParityEncoder parityAudio = new ParityEncoder();
+        private final Packet parityPending = new Packet();
+        private boolean parityIsPending = false;
+        private long timeParity = 0;
+        private final AtomicLongArray outcomes = new AtomicLongArray(OUTCOMES.length);
+        private final ExpandableDirectByteBuffer[] pendingVideo = new ExpandableDirectByteBuffer[COUNT_LAYERS];
+        private final int[] pendingVideoLength = new int[COUNT_LAYERS];
+        private final Packet retryPending = new Packet();
+        private Publication retryPublication;
+        private boolean retryIsPending = false;
+        private boolean retryForever = false;
+        private long retryDeadline = 0;
+
+        public Broadcaster(final Aeron aeron, final long addressUDP, final IntConsumer onVideoDropped) {
+            this(aeron, addressUDP, Policy.NEVER_DROP, Policy.DROP_OLDEST, 5_000_000L, onVideoDropped);
+        }
+
+        public Broadcaster(
+            final Aeron aeron, final long addressUDP, final Policy policyAudio, final Policy policyVideo,
+            final long nanosRetry, final IntConsumer onVideoDropped
+        ) {
+            super(0, (byte) (Packet.TYPE_AUDIO | Packet.TYPE_VIDEO));
+            this.addressUDP = addressUDP;
+            this.policyAudio = policyAudio;
+            this.policyVideo = policyVideo;
+            this.nanosRetry = nanosRetry;
+            this.onVideoDropped = onVideoDropped;
+            publicationAudio = aeron.addPublication(channel("control-mode=manual", SIZE_TERM_AUDIO), STREAM_AUDIO);
+            for (int layer = 0; layer < COUNT_LAYERS; layer += 1) {
+                publicationsVideo[layer] = aeron.addPublication(channel("control-mode=manual", SIZE_TERM_VIDEO), streamVideo(layer));
+                pendingVideo[layer] = new ExpandableDirectByteBuffer(1 << 12);
+            }
+            start();
+        }
+
+        public void addAddressUDP(final long addressUDP) {
+            Logging.of(this).info(
+                "this.addressUDP=" + Addressing.longToPort(this.addressUDP)
+                + " addressUDP=" + Addressing.longToPort(addressUDP)
+            );
+            publicationAudio.addDestination("aeron:udp?endpoint=" + Addressing.longToString(addressUDP));
+            for (final Publication publicationVideo : publicationsVideo) {
+                publicationVideo.addDestination("aeron:udp?endpoint=" + Addressing.longToString(addressUDP));
+            }
+        }
+
+        public void removeAddressUDP(final long addressUDP) {
+            Logging.of(this).info(
+                "this.addressUDP=" + Addressing.longToPort(this.addressUDP)
+                + " addressUDP=" + Addressing.longToPort(addressUDP)
+            );
+            publicationAudio.removeDestination("aeron:udp?endpoint=" + Addressing.longToString(addressUDP));
+            for (final Publication publicationVideo : publicationsVideo) {
+                publicationVideo.removeDestination("aeron:udp?endpoint=" + Addressing.longToString(addressUDP));
+            }
+        }
+        
+        public long count(final Outcome outcome) {
+            return outcomes.get(outcome.ordinal());
+        }
+
+        public void reportLoss(final float loss) { parityAudio.reportLoss(loss); }
+
+        public int layersConnected() {
+            int layers = 0;
+            for (int layer = 0; layer < COUNT_LAYERS; layer += 1) if (publicationsVideo[layer].isConnected()) layers |= 1 << layer;
+            return layers;
+        }
+        public int sizeGroupAudio() { return parityAudio.sizeGroup(); }
+        
+        public String counters() {
+            final StringBuilder builder = new StringBuilder();
+            for (final Outcome outcome : OUTCOMES) builder.append(outcome).append('=').append(count(outcome)).append(' ');
+            return builder.toString().trim();
+        }
+        
+        private void increment(final Outcome outcome) {
+            outcomes.lazySet(outcome.ordinal(), outcomes.get(outcome.ordinal()) + 1);
+        }
+        
+        @Override protected int run() {
+            int work = 0;
+            if (retryIsPending) work += retry();
+            if (parityIsPending && System.nanoTime() - timeParity >= 0) {
+                sendParity();
+                work += 1;
+            }
+            for (int layer = 0; layer < COUNT_LAYERS; layer += 1) {
+                if (pendingVideoLength[layer] > 0 && send(publicationsVideo[layer], pendingVideo[layer], pendingVideoLength[layer]) > 0) {
+                    pendingVideoLength[layer] = 0;
+                    work += 1;
+                }
+            }
+            return work + super.run();
+        }
+
+        @Override protected void consume(final Packet packet) {
+            final boolean audio = (packet.type() & Packet.TYPE_AUDIO) != 0;
+            final Policy policy = audio ? policyAudio : policyVideo;
+            final int layer = audio ? 0 : packet.layer();
+            final Publication publication = audio ? publicationAudio : publicationsVideo[layer];
+            
+            if (!audio && pendingVideoLength[layer] > 0) {
+                pendingVideoLength[layer] = 0;
+                increment(Outcome.SUPERSEDED_VIDEO);
+                onVideoDropped.accept(layer);
+            }
+            
+            final long result = send(publication, packet, packet.size());
+            if (result > 0) {
+                if (audio) protect(packet);
+                return;
+            }
+            
+            if (policy == Policy.DROP_OLDEST && result == Publication.BACK_PRESSURED && !audio) {
+                pendingVideo[layer].putBytes(0, packet, 0, packet.size());
+                pendingVideoLength[layer] = packet.size();
+                return;
+            }
+            
+            if (retryable(result)) {
+                retryPending.allocate(packet.size()).putBytes(0, packet, 0, packet.size());
+                retryPublication = publication;
+                retryForever = policy == Policy.NEVER_DROP;
+                retryDeadline = System.nanoTime() + nanosRetry;
+                retryIsPending = true;
+                return;
+            }
+            drop(packet, result);
+        }
+        
+        @Override protected boolean stalled() { return retryIsPending; }
+        
+        private int retry() {
+            final long result = send(retryPublication, retryPending, retryPending.size());
+            if (result > 0) {
+                retryIsPending = false;
+                if ((retryPending.type() & Packet.TYPE_AUDIO) != 0) protect(retryPending);
+                return 1;
+            }
+            if (retryable(result) && (retryForever || System.nanoTime() - retryDeadline < 0)) return 0;
+            retryIsPending = false;
+            drop(retryPending, result);
+            return 1;
+        }
+        
+        private void drop(final Packet packet, final long result) {
+            if (result == Publication.NOT_CONNECTED) return;
+            final boolean audio = (packet.type() & Packet.TYPE_AUDIO) != 0;
+            increment(audio ? Outcome.DROPPED_AUDIO : Outcome.DROPPED_VIDEO);
+            if (!audio && retryable(result)) onVideoDropped.accept(packet.layer());
+        }
+        
+        private void protect(final Packet packet) {
+            final Packet parity = parityAudio.add(packet);
+            if (parity == null) return;
+            if (parityIsPending) sendParity();
+            parityPending.allocate(parity.size()).putBytes(0, parity, 0, parity.size());
+            parityIsPending = true;
+            timeParity = System.nanoTime() + NANOS_PARITY_DELAY;
+        }
+
+        private void sendParity() {
+            parityIsPending = false;
+            if (publicationAudio.offer(parityPending, 0, parityPending.size()) > 0) increment(Outcome.PARITY);
+        }
+
+        private static boolean retryable(final long result) {
+            return result == Publication.BACK_PRESSURED || result == Publication.ADMIN_ACTION;
+        }
+        
+        private long send(final Publication publication, final DirectBuffer buffer, final int length) {
+            final long result = publication.offer(buffer, 0, length);
+            increment(Outcome.of(result));
+            return result;
+        }
+    }
+
+    static class Receiver extends Producer {
+        private static final int FRAGMENTS_AUDIO = 16;
+        private static final int FRAGMENTS_VIDEO = 4;
+        private static final Source[] SOURCES_EMPTY = new Source[0];
+        
+        private final Aeron aeron;
+        private final long address;
+        private final int cyclesPerVideo;
+        private final Subscription subscriptionAudio;
+        private final Subscription[] subscriptionsVideo = new Subscription[COUNT_LAYERS];
+        private volatile Source[] sourcesAudio = SOURCES_EMPTY;
+        private volatile Source[] sourcesVideo = SOURCES_EMPTY;
+        private volatile int layers = 1;
+        private int layersSubscribed = 0;
+        private long cycle = 0;
+        private volatile long countReceived = 0;
+        private volatile long bytesReceived = 0;
+        private volatile long countRecovered = 0;
+        private volatile long countOverrun = 0;
+
+        public Receiver(final Aeron aeron, final long address) {
+            this(aeron, address, 1, true);
+        }
+
+        public Receiver(final Aeron aeron, final long address, final int cyclesPerVideo, final boolean reliableAudio) {
+            super(0);
+            this.aeron = aeron;
+            this.address = address;
+            this.cyclesPerVideo = cyclesPerVideo;
+            subscriptionAudio = subscribe(STREAM_AUDIO, SIZE_TERM_AUDIO, reliableAudio);
+            subscribeVideo();
+            start();
+        }
+
+        public void setLayers(final int layers) { this.layers = layers; }
+        public long countReceived() { return countReceived; }
+        public long bytesReceived() { return bytesReceived; }
+        public long countRecovered() { return countRecovered; }
+        public long countOverrun() { return countOverrun; }
+        public int countImages() { return sourcesAudio.length + sourcesVideo.length; }
+
+        public String counters() {
+            final StringBuilder builder = new StringBuilder();
+            for (final Source source : sourcesAudio) builder.append(source).append(' ');
+            for (final Source source : sourcesVideo) builder.append(source).append(' ');
+            return builder.toString().trim();
+        }
+
+        @Override protected int produce() {
+            if (layers != layersSubscribed) subscribeVideo();
+            final Source[] sourcesAudio = this.sourcesAudio;
+            cycle += 1;
+            int fragments = poll(sourcesAudio, FRAGMENTS_AUDIO);
+            if (fragments < FRAGMENTS_AUDIO * Math.max(1, sourcesAudio.length) && cycle % cyclesPerVideo == 0) {
+                fragments += poll(sourcesVideo, FRAGMENTS_VIDEO);
+            }
+            return fragments;
+        }
+
+        private int poll(final Source[] sources, final int fragmentsPerImage) {
+            int fragments = 0;
+            final int length = sources.length;
+            final int start = length == 0 ? 0 : (int) (cycle % length);
+            for (int index = 0; index < length; index += 1) {
+                final int remaining = buffer.remaining();
+                if (remaining == 0) break;
+                fragments += sources[(start + index) % length].poll(Math.min(fragmentsPerImage, remaining));
+            }
+            return fragments;
+        }
+
+        private Subscription subscribe(final int stream, final int sizeTerm, final boolean reliable) {
+            return aeron.addSubscription(
+                channel("endpoint=" + Addressing.longToString(address) + (reliable ? "" : "|reliable=false"), sizeTerm),
+                stream, this::onAvailableImage, this::onUnavailableImage
+            );
+        }
+
+        private void subscribeVideo() {
+            final int layers = this.layers;
+            for (int layer = 0; layer < COUNT_LAYERS; layer += 1) {
+                final boolean wanted = (layers & (1 << layer)) != 0;
+                if (wanted && subscriptionsVideo[layer] == null) {
+                    subscriptionsVideo[layer] = subscribe(streamVideo(layer), SIZE_TERM_VIDEO, true);
+                } else if (!wanted && subscriptionsVideo[layer] != null) {
+                    subscriptionsVideo[layer].close();
+                    remove(subscriptionsVideo[layer], null);
+                    subscriptionsVideo[layer] = null;
+                }
+            }
+            layersSubscribed = layers;
+        }
+
+        private synchronized void onAvailableImage(final Image image) {
+            final Source source = new Source(image);
+            if (image.subscription().streamId() == STREAM_AUDIO) {
+                final Source[] sources = Arrays.copyOf(sourcesAudio, sourcesAudio.length + 1);
+                sources[sources.length - 1] = source;
+                sourcesAudio = sources;
+            } else {
+                final Source[] sources = Arrays.copyOf(sourcesVideo, sourcesVideo.length + 1);
+                sources[sources.length - 1] = source;
+                sourcesVideo = sources;
+            }
+            Logging.of(this).info(
+                "address=" + Addressing.longToPort(address) + " stream=" + image.subscription().streamId()
+                + " session=" + image.sessionId() + " source=" + image.sourceIdentity() + " available"
+            );
+        }
+
+        private void onUnavailableImage(final Image image) {
+            remove(null, image);
+        }
+
+        private synchronized void remove(final Subscription subscription, final Image image) {
+            sourcesAudio = remove(sourcesAudio, subscription, image);
+            sourcesVideo = remove(sourcesVideo, subscription, image);
+        }
+
+        private Source[] remove(final Source[] sources, final Subscription subscription, final Image image) {
+            final Source[] remaining = new Source[sources.length];
+            int length = 0;
+            for (final Source source : sources) {
+                if (source.image == image || source.image.subscription() == subscription) {
+                    Logging.of(this).info("address=" + Addressing.longToPort(address) + " stream=" + source.stream + " " + source + " unavailable");
+                } else {
+                    remaining[length++] = source;
+                }
+            }
+            return length == sources.length ? sources : Arrays.copyOf(remaining, length);
+        }
+
+        private void deliver(final DirectBuffer buffer, final int offset, final int length) {
+            final Packet packet = this.buffer.tryClaim();
+            if (packet == null) {
+                countOverrun += 1;
+                return;
+            }
+            packet.allocate(length);
+            buffer.getBytes(offset, packet, 0, length);
+            this.buffer.commit();
+            countReceived += 1;
+            bytesReceived += length;
+        }
+
+        @Override public void onClose() {
+            subscriptionAudio.close();
+            for (final Subscription subscriptionVideo : subscriptionsVideo) if (subscriptionVideo != null) subscriptionVideo.close();
+        }
+
+        class Source {
+            final Image image;
+            final int stream;
+            final FragmentAssembler fragmentAssembler = new FragmentAssembler(this::receive, 0, true);
+            final Packet header = new Packet();
+            final Long2ObjectHashMap<ParityDecoder> addressUDPToDecoder = new Long2ObjectHashMap<>();
+            final long timeAvailable = System.nanoTime();
+            volatile long addressUDP = 0;
+            volatile long countReceived = 0;
+            volatile long bytesReceived = 0;
+            volatile long countInvalid = 0;
+            volatile long countGaps = 0;
+            volatile long countParity = 0;
+            volatile long countRecovered = 0;
+            volatile long timeReceived = 0;
+            private int sequence = 0;
+
+            Source(final Image image) {
+                this.image = image;
+                stream = image.subscription().streamId();
+            }
+
+            int poll(final int fragments) {
+                return image.poll(fragmentAssembler, fragments);
+            }
+
+            private void receive(final DirectBuffer buffer, final int offset, final int length, final Header header) {
+                if (!Packet.valid(buffer, offset, length)) {
+                    countInvalid += 1;
+                    return;
+                }
+                this.header.wrap(buffer, offset, length);
+                final long addressUDP = this.header.addressUDP();
+                if ((this.header.flags() & Packet.FLAG_PARITY) != 0) {
+                    recover(addressUDP, buffer, offset, this.header.size());
+                    return;
+                }
+                final int sequence = this.header.sequence();
+                if (countReceived > 0 && addressUDP == this.addressUDP && sequence - this.sequence > 1) countGaps += sequence - this.sequence - 1;
+                this.addressUDP = addressUDP;
+                this.sequence = sequence;
+                countReceived += 1;
+                bytesReceived += length;
+                timeReceived = System.nanoTime();
+                final ParityDecoder decoder = addressUDPToDecoder.get(addressUDP);
+                if (decoder != null) decoder.add(buffer, offset, this.header.size(), sequence);
+                deliver(buffer, offset, this.header.size());
+            }
+
+            private void recover(final long addressUDP, final DirectBuffer buffer, final int offset, final int length) {
+                countParity += 1;
+                final ParityDecoder decoder = addressUDPToDecoder.get(addressUDP);
+                if (decoder == null) {
+                    addressUDPToDecoder.put(addressUDP, new ParityDecoder());
+                    return;
+                }
+                final Packet recovered = decoder.recover(buffer, offset, length);
+                if (recovered == null) return;
+                countRecovered += 1;
+                Receiver.this.countRecovered += 1;
+                deliver(recovered, 0, recovered.size());
+            }
+
+            @Override public String toString() {
+                return "session=" + image.sessionId() + " sender=" + Addressing.longToPort(addressUDP) + " packets=" + countReceived
+                    + " bytes=" + bytesReceived + " gaps=" + countGaps + " invalid=" + countInvalid
+                    + " parity=" + countParity + " recovered=" + countRecovered
+                    + " seconds=" + (System.nanoTime() - timeAvailable) / 1_000_000_000L;
+            }
+        }
+    }
+}
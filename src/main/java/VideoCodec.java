@@ -0,0 +1,20 @@
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.awt.image.BufferedImage;
+
+interface VideoCodec {
+    Encoder encoder(final int width, final int height);
+    Decoder decoder();
+    boolean isKeyframe(final DirectBuffer buffer, final int offset, final int length);
+
+    interface Encoder {
+        int encode(final BufferedImage image, final MutableDirectBuffer buffer);
+        void requestKeyframe();
+        void setQuality(final int degradation);
+    }
+
+    interface Decoder {
+        BufferedImage decode(final DirectBuffer buffer, final int offset, final int length);
+    }
+}
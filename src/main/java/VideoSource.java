@@ -0,0 +1,6 @@
+import java.awt.image.BufferedImage;
+
+interface VideoSource {
+    BufferedImage next();
+    default void close() {}
+}
@@ -0,0 +1,28 @@
+class VoiceActivityDetector {
+    private static final int LEVEL_MINIMUM = 100;
+    private static final int FACTOR_THRESHOLD = 4;
+    private static final int SHIFT_NOISE = 3;
+    private static final int SHIFT_NOISE_ACTIVE = 8;
+    private static final int FRAMES_HANGOVER = 10;
+
+    private int levelNoise = 0;
+    private int framesHangover = 0;
+
+    public boolean active(final short[] samples, final int offset, final int count) {
+        long energy = 0;
+        for (int index = 0; index < count; index += 1) energy += samples[offset + index] * samples[offset + index];
+        final int level = (int) Math.sqrt((double) energy / count);
+        final boolean active = level > Math.max(LEVEL_MINIMUM, levelNoise * FACTOR_THRESHOLD);
+        if (active) levelNoise += Math.max(1, levelNoise >> SHIFT_NOISE_ACTIVE);
+        else levelNoise += (level - levelNoise) >> SHIFT_NOISE;
+        if (active) {
+            framesHangover = FRAMES_HANGOVER;
+            return true;
+        }
+        if (framesHangover == 0) return false;
+        framesHangover -= 1;
+        return true;
+    }
+
+    public int levelNoise() { return levelNoise; }
+}
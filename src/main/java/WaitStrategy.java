@@ -0,0 +1,59 @@
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+interface WaitStrategy {
+    void idle(final int attempts);
+    void signal();
+
+    class BusySpin implements WaitStrategy {
+        @Override public void idle(final int attempts) { Thread.onSpinWait(); }
+        @Override public void signal() {}
+    }
+
+    class Yielding implements WaitStrategy {
+        @Override public void idle(final int attempts) {
+            if (attempts < 100) Thread.onSpinWait();
+            else Thread.yield();
+        }
+        @Override public void signal() {}
+    }
+
+    class Parking implements WaitStrategy {
+        private final long nanosMaximum;
+
+        Parking(final long nanosMaximum) { this.nanosMaximum = nanosMaximum; }
+
+        @Override public void idle(final int attempts) {
+            if (attempts < 100) Thread.onSpinWait();
+            else if (attempts < 200) Thread.yield();
+            else LockSupport.parkNanos(Math.min(nanosMaximum, 1L << Math.min(attempts - 200, 20)));
+        }
+        @Override public void signal() {}
+    }
+
+    class Blocking implements WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition condition = lock.newCondition();
+        private volatile int waiters = 0;
+
+        @Override public void idle(final int attempts) {
+            lock.lock();
+            try {
+                waiters += 1;
+                condition.awaitNanos(1_000_000);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiters -= 1;
+                lock.unlock();
+            }
+        }
+
+        @Override public void signal() {
+            if (waiters == 0) return;
+            lock.lock();
+            try { condition.signalAll(); } finally { lock.unlock(); }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+import org.openimaj.image.ImageUtilities;
+import org.openimaj.video.capture.VideoCapture;
+import org.openimaj.video.capture.VideoCaptureException;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+class WebcamSource implements VideoSource {
+    private final VideoCapture videoCapture;
+    private final BufferedImage bufferedImage;
+
+    public WebcamSource(final Dimension dimension) throws VideoCaptureException {
+        videoCapture = new VideoCapture((int) dimension.getWidth(), (int) dimension.getHeight());
+        bufferedImage = new BufferedImage((int) dimension.getWidth(), (int) dimension.getHeight(), BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @Override public BufferedImage next() {
+        ImageUtilities.createBufferedImage(videoCapture.getNextFrame(), bufferedImage);
+        return bufferedImage;
+    }
+
+    @Override public void close() {
+        videoCapture.stopCapture();
+    }
+}
@@ -0,0 +1,88 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+class Window extends Consumer {
+    public static final int OFFSET_ADDRESS_SENDER = Packet.SIZE_HEADER;
+    public static final int SIZE_REQUEST = 8;
+    private static final long NANOS_HOLD_MAXIMUM = 1_000_000_000L;
+
+    private final long addressUDP;
+    private final RemoteClock clock;
+    private final PlayoutClock playoutClock;
+    private final Sender sender;
+    private final Packet request = new Packet();
+    private volatile int layers = 1;
+    final DecodePool decodePool;
+    final Compositor compositor;
+    final Histogram histogramLatency = new Histogram();
+    final Histogram histogramSkew = new Histogram();
+
+    public Window(
+        final Dimension dimension, final long addressUDP, final VideoCodec codec, final RemoteClock clock, final PlayoutClock playoutClock, final Sender sender
+    ) {
+        this(dimension, addressUDP, codec, clock, playoutClock, sender, GraphicsEnvironment.isHeadless());
+    }
+
+    public Window(
+        final Dimension dimension, final long addressUDP, final VideoCodec codec, final RemoteClock clock, final PlayoutClock playoutClock,
+        final Sender sender, final boolean headless
+    ) {
+        super(0, Packet.TYPE_VIDEO);
+        this.addressUDP = addressUDP;
+        this.clock = clock;
+        this.playoutClock = playoutClock;
+        this.sender = sender;
+        request.wrap(new byte[Packet.SIZE_HEADER + SIZE_REQUEST]);
+        request.setType(Packet.TYPE_KEYFRAME).setLength(SIZE_REQUEST).setAddressUDP(addressUDP);
+        decodePool = new DecodePool(
+            codec, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)),
+            this::due, this::decoded, this::requestKeyframe, Addressing.longToPort(addressUDP) + " window"
+        );
+        compositor = new Compositor(dimension, Addressing.longToString(addressUDP), headless);
+        start();
+    }
+
+    public void setLayers(final int layers) { this.layers = layers; }
+
+    @Override protected void consume(final Packet packet) {
+        if ((layers & (1 << packet.layer())) != 0) decodePool.submit(packet);
+    }
+
+    private boolean due(final long address, final long time) {
+        final long timePlayout = playoutClock.timePlayout(address);
+        return timePlayout == RemoteClock.UNKNOWN || time <= timePlayout || time - timePlayout > NANOS_HOLD_MAXIMUM;
+    }
+
+    private void requestKeyframe(final long address, final int layer) {
+        if (address == addressUDP) return;
+        request.setLayer(layer).setTime(System.nanoTime()).putLong(OFFSET_ADDRESS_SENDER, address);
+        sender.send(address, request);
+    }
+
+    private void decoded(final long address, final BufferedImage bufferedImage, final long time) {
+        compositor.submit(address, bufferedImage);
+        if (address == addressUDP) return;
+        final long timeLocal = clock.toLocal(address, time);
+        if (timeLocal != RemoteClock.UNKNOWN) histogramLatency.record(System.nanoTime() - timeLocal);
+        final long timePlayout = playoutClock.timePlayout(address);
+        if (timePlayout != RemoteClock.UNKNOWN) histogramSkew.record(Math.abs(timePlayout - time));
+    }
+
+    public void removeAddressUDP(final long addressUDP) {
+        decodePool.remove(addressUDP);
+        compositor.remove(addressUDP);
+    }
+
+    public void clear() {
+        for (final long address : decodePool.addresses()) if (address != addressUDP) removeAddressUDP(address);
+    }
+    
+    @Override protected void stop() {
+        super.stop();
+        decodePool.stop();
+        compositor.stop();
+    }
+    
+    public interface PlayoutClock { long timePlayout(final long addressUDP); }
+    public interface Sender { void send(final long addressUDPSender, final Packet request); }
+}
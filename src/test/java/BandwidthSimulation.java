@@ -0,0 +1,70 @@
+class BandwidthSimulation {
+    public static void main(final String[] arguments) {
+        final long nanosPerFrame = 1_000_000_000L / 30;
+        final long nanosPerAudio = 20_000_000L;
+        final long nanosReport = 100_000_000L;
+        final long bitrateAudio = (Packet.SIZE_HEADER + 320) * 8 * 1_000_000_000L / nanosPerAudio;
+        final long[][] phases = { { 20, 2_000_000L }, { 20, 400_000L }, { 20, 1_000_000L } };
+        final SyntheticVideo video = new SyntheticVideo(320, 240, 2);
+        final LayeredEncoder encoder = new LayeredEncoder(320, 240, 1, new TileCodec(), LayeredEncoder.LAYERS);
+        final RingBuffer<Packet> ring = new RingBuffer<>(Packet::factory, 64);
+        final int ticket = ring.subscribe();
+        final SyntheticNetwork network = new SyntheticNetwork(1, 0.002, 0, 20_000_000L, 1_000_000L);
+        final DelayEstimator estimator = new DelayEstimator(FeedbackReporter.COUNT_STREAMS, FeedbackReporter.STREAMS_TREND);
+        final RateController controller = new RateController(100_000L, 4_000_000L);
+        final Packet audio = new Packet();
+        final Packet report = new Packet();
+        report.wrap(new byte[Packet.SIZE_HEADER + FeedbackReporter.SIZE_REPORT]);
+        final long[] bytesDelivered = new long[1];
+        final long[] delaySum = new long[2];
+
+        long time = 0;
+        long timeFrame = 0;
+        long timeAudio = 0;
+        long timeReport = nanosReport;
+        int sequenceAudio = 0;
+        for (final long[] phase : phases) {
+            network.setCapacity(phase[1], 400_000_000L);
+            for (int second = 0; second < phase[0]; second += 1) {
+                final long end = time + 1_000_000_000L;
+                final long lostStart = network.countLost();
+                bytesDelivered[0] = 0;
+                delaySum[0] = 0;
+                delaySum[1] = 0;
+                for (; time < end; time += 1_000_000L) {
+                    if (time >= timeFrame) {
+                        timeFrame += nanosPerFrame;
+                        encoder.encode(video.next(), time, ring);
+                        final int count = ring.acquire(ticket, ring.size());
+                        for (int index = 0; index < count; index += 1) network.send(time, ring.get(ticket, index));
+                        if (count > 0) ring.release(ticket, count);
+                    }
+                    if (time >= timeAudio) {
+                        timeAudio += nanosPerAudio;
+                        audio.allocate(Packet.SIZE_HEADER + 320);
+                        audio.setType(Packet.TYPE_AUDIO).setLength(320).setAddressUDP(1).setTime(time).setSequence(sequenceAudio++);
+                        network.send(time, audio);
+                    }
+                    final long now = time;
+                    network.receive(time, (timeArrival, packet) -> {
+                        estimator.receive(FeedbackReporter.stream(packet), packet.sequence(), packet.time(), timeArrival, packet.size());
+                        bytesDelivered[0] += packet.size();
+                        delaySum[0] += timeArrival - packet.time();
+                        delaySum[1] += 1;
+                    });
+                    if (time >= timeReport) {
+                        timeReport += nanosReport;
+                        estimator.report(time, 1, report);
+                        encoder.setTarget(Math.max(0, controller.update(2, time, report) - bitrateAudio));
+                    }
+                }
+                System.out.printf(
+                    "t=%2ds capacity=%5dkbps target=%5dkbps sent=%5dkbps delivered=%5dkbps level=%d delay=%5.1fms lost=%3d signal=%2d%n",
+                    time / 1_000_000_000L, phase[1] / 1000, controller.target(time) / 1000, encoder.bitrate() / 1000,
+                    bytesDelivered[0] * 8 / 1000, encoder.level(), delaySum[1] == 0 ? 0 : delaySum[0] / 1e6 / delaySum[1],
+                    network.countLost() - lostStart, estimator.signal()
+                );
+            }
+        }
+    }
+}
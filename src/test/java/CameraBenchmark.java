@@ -0,0 +1,70 @@
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.locks.LockSupport;
+
+class CameraBenchmark {
+    public static void main(final String[] arguments) throws Exception {
+        final int seconds = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 5;
+        final int framesPerSecond = 30;
+        final Dimension dimension = new Dimension(320, 240);
+
+        for (final int millisecondsStall : new int[] { 0, 20, 60 }) {
+            final Camera camera = new Camera(
+                dimension, framesPerSecond, 1, new StallingCodec(new TileCodec(), millisecondsStall),
+                new LayeredEncoder.Layer[] { new LayeredEncoder.Layer(1, 1) }, new SyntheticVideo((int) dimension.getWidth(), (int) dimension.getHeight(), 2)
+            );
+            final Histogram histogramLatency = new Histogram();
+            final Consumer consumer = new Consumer(0, Packet.TYPE_VIDEO) {
+                { start(); }
+                @Override protected void consume(final Packet packet) { histogramLatency.record(System.nanoTime() - packet.time()); }
+            };
+            consumer.subscribe(camera);
+            Thread.sleep(seconds * 1_000L);
+            camera.stop();
+            consumer.stop();
+
+            final long[] counts = new long[Histogram.SIZE];
+            histogramLatency.copyInto(counts);
+            final long encoded = Histogram.count(counts);
+            final double latency50 = Histogram.percentile(counts, encoded, 0.5) / 1e6;
+            final double latency99 = Histogram.percentile(counts, encoded, 0.99) / 1e6;
+            camera.capturer.histogramInterval.copyInto(counts);
+            final long intervals = Histogram.count(counts);
+            System.out.printf(
+                "stall=%2dms captured=%5.1f/s encoded=%5.1f/s dropped=%4d interval p50=%6.2fms p99=%6.2fms latency p50=%6.2fms p99=%6.2fms%n",
+                millisecondsStall, camera.countCaptured() / (double) seconds, encoded / (double) seconds, camera.countDropped(),
+                Histogram.percentile(counts, intervals, 0.5) / 1e6, Histogram.percentile(counts, intervals, 0.99) / 1e6, latency50, latency99
+            );
+        }
+        System.exit(0);
+    }
+
+    private static class StallingCodec implements VideoCodec {
+        private final VideoCodec codec;
+        private final long nanosStall;
+
+        StallingCodec(final VideoCodec codec, final int millisecondsStall) {
+            this.codec = codec;
+            nanosStall = millisecondsStall * 1_000_000L;
+        }
+
+        @Override public Encoder encoder(final int width, final int height) {
+            final Encoder encoder = codec.encoder(width, height);
+            return new Encoder() {
+                @Override public int encode(final BufferedImage image, final MutableDirectBuffer buffer) {
+                    if (nanosStall > 0) LockSupport.parkNanos(nanosStall);
+                    return encoder.encode(image, buffer);
+                }
+
+                @Override public void requestKeyframe() { encoder.requestKeyframe(); }
+                @Override public void setQuality(final int degradation) { encoder.setQuality(degradation); }
+            };
+        }
+
+        @Override public Decoder decoder() { return codec.decoder(); }
+        @Override public boolean isKeyframe(final DirectBuffer buffer, final int offset, final int length) { return codec.isKeyframe(buffer, offset, length); }
+    }
+}
@@ -0,0 +1,26 @@
+import java.util.SplittableRandom;
+
+class ClockSimulation {
+    public static void main(final String[] arguments) {
+        final long offset = 3_600_000_000_000L;
+        final double drift = 80e-6;
+        final SplittableRandom random = new SplittableRandom(1);
+        final ClockEstimator estimator = new ClockEstimator();
+        for (int second = 0; second < 60; second += 1) {
+            final long timeRequest = second * 1_000_000_000L;
+            final long delayForward = 5_000_000L + (random.nextInt(10) == 0 ? random.nextLong(30_000_000L) : random.nextLong(500_000L));
+            final long delayBackward = 5_000_000L + (random.nextInt(10) == 0 ? random.nextLong(30_000_000L) : random.nextLong(500_000L));
+            final long timeReceived = timeRequest + delayForward + offset + (long) (drift * (timeRequest + delayForward));
+            final long timeReplied = timeReceived + 50_000L;
+            final long timeResponse = timeRequest + delayForward + 50_000L + delayBackward;
+            estimator.sample(timeRequest, timeReceived, timeReplied, timeResponse);
+            final long truth = offset + (long) (drift * timeResponse);
+            if (second % 5 == 4) {
+                System.out.printf(
+                    "t=%2ds error=%8.3fms drift=%6.1fppm rtt=%6.3fms%n",
+                    second + 1, (estimator.offset(timeResponse) - truth) / 1e6, estimator.drift() * 1e6, estimator.rtt() / 1e6
+                );
+            }
+        }
+    }
+}
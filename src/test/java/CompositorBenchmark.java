@@ -0,0 +1,41 @@
+import java.awt.*;
+
+class CompositorBenchmark {
+    public static void main(final String[] arguments) throws Exception {
+        final int senders = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 9;
+        final int seconds = arguments.length > 1 ? Integer.parseInt(arguments[1]) : 10;
+        final int framesPerSecond = arguments.length > 2 ? Integer.parseInt(arguments[2]) : 30;
+        final Compositor compositor = new Compositor(new Dimension(320, 240), "benchmark", true);
+        final SyntheticVideo[] videos = new SyntheticVideo[senders];
+        for (int index = 0; index < senders; index += 1) videos[index] = new SyntheticVideo(320, 240, 2);
+
+        final long nanosFrame = 1_000_000_000L / framesPerSecond;
+        final long timeStart = System.nanoTime();
+        long deadline = timeStart;
+        long submitted = 0;
+        while (System.nanoTime() - timeStart < seconds * 1_000_000_000L) {
+            for (int index = 0; index < senders; index += 1) compositor.submit(index, videos[index].next());
+            submitted += senders;
+            deadline += nanosFrame;
+            final long sleep = deadline - System.nanoTime();
+            if (sleep > 0) Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+        }
+        final double elapsed = (System.nanoTime() - timeStart) / 1e9;
+        compositor.stop();
+
+        final long[] counts = new long[Histogram.SIZE];
+        System.out.printf(
+            "senders=%d submitted=%.0f/s presented=%.1f/s skipped=%d size=%dx%d%n", senders, submitted / elapsed,
+            compositor.countPresented() / elapsed, compositor.countSkipped(), compositor.backBuffer().getWidth(), compositor.backBuffer().getHeight()
+        );
+        for (final String name : new String[] { "composite", "interval" }) {
+            (name.equals("composite") ? compositor.histogramComposite : compositor.histogramInterval).copyInto(counts);
+            final long count = Histogram.count(counts);
+            System.out.printf(
+                "%-9s p50=%7.3fms p99=%7.3fms max=%7.3fms%n", name, Histogram.percentile(counts, count, 0.5) / 1e6,
+                Histogram.percentile(counts, count, 0.99) / 1e6, Histogram.percentile(counts, count, 1.0) / 1e6
+            );
+        }
+        System.exit(0);
+    }
+}
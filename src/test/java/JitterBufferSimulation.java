@@ -0,0 +1,51 @@
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteOrder;
+
+class JitterBufferSimulation {
+    public static void main(final String[] arguments) {
+        final AudioFormat audioFormat = new AudioFormat(8000.0f, 16, 1, true, true);
+        final int samplesPerPacket = 160;
+        final long nanosPerPacket = 20_000_000L;
+        final JitterBuffer jitterBuffer = new JitterBuffer(audioFormat, 20, 400);
+        final Packet packet = new Packet();
+        final short[] output = new short[samplesPerPacket];
+        final long[][] phases = { { 20_000, 20_000_000L }, { 10_000, 120_000_000L }, { 30_000, 20_000_000L } };
+        final SyntheticNetwork network = new SyntheticNetwork(1, 0.05, 0.05, 30_000_000L, 0);
+
+        long time = 0;
+        long sequence = 0;
+        for (int phase = 0; phase < phases.length; phase += 1) {
+            network.setJitter(phases[phase][1]);
+            final long end = time + phases[phase][0] * 1_000_000L;
+            long delaySum = 0;
+            long delayCount = 0;
+            final long concealedStart = jitterBuffer.countConcealed();
+            final long lateStart = jitterBuffer.countLate();
+            final long lostStart = network.countLost();
+            final long reorderedStart = network.countReordered();
+            for (; time < end; time += nanosPerPacket) {
+                packet.allocate(Packet.SIZE_HEADER + samplesPerPacket * 2);
+                for (int index = 0; index < samplesPerPacket; index += 1) {
+                    packet.putShort(Packet.SIZE_HEADER + index * 2, (short) (8000 * Math.sin(2 * Math.PI * 440 * (sequence * samplesPerPacket + index) / 8000.0)), ByteOrder.BIG_ENDIAN);
+                }
+                packet.setType(Packet.TYPE_AUDIO).setLength(samplesPerPacket * 2).setAddressUDP(1).setTime(time);
+                sequence += 1;
+                network.send(time, packet);
+                network.receive(time, (timeArrival, received) -> jitterBuffer.write(received, Packet.SIZE_HEADER, received.length(), received.time(), timeArrival));
+                jitterBuffer.read(output, 0, samplesPerPacket);
+                delaySum += jitterBuffer.depth();
+                delayCount += 1;
+            }
+            System.out.printf(
+                "phase=%d jitter=%5.1fms target=%5.1fms depth=%5.1fms concealed=%4d late=%4d lost=%4d reordered=%4d%n",
+                phase, jitterBuffer.jitterNanos() / 1e6, jitterBuffer.delayTarget() / 8.0, delaySum / 8.0 / delayCount,
+                jitterBuffer.countConcealed() - concealedStart, jitterBuffer.countLate() - lateStart,
+                network.countLost() - lostStart, network.countReordered() - reorderedStart
+            );
+        }
+        System.out.printf(
+            "packets=%d accelerated=%d decelerated=%d%n",
+            jitterBuffer.countPackets(), jitterBuffer.countAccelerated(), jitterBuffer.countDecelerated()
+        );
+    }
+}
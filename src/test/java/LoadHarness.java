@@ -0,0 +1,88 @@
+import java.util.Arrays;
+
+class LoadHarness {
+    private static final String[] HISTOGRAMS = { "speaker.latency", "window.latency", "camera.encode", "window.decode" };
+
+    public static void main(final String[] arguments) throws Exception {
+        final int count = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 4;
+        final int seconds = arguments.length > 1 ? Integer.parseInt(arguments[1]) : 20;
+        final boolean relay = arguments.length > 2 && arguments[2].equals("relay");
+        final double loss = arguments.length > 3 ? Double.parseDouble(arguments[3]) : 0;
+        final boolean reliable = arguments.length <= 4 || !arguments[4].equals("unreliable");
+        System.setProperty("conference.loss", Double.toString(loss));
+        System.setProperty("conference.reliable", Boolean.toString(reliable));
+
+        final Participant[] participants = new Participant[count];
+        for (int index = 0; index < count; index += 1) {
+            participants[index] = new Participant(
+                Addressing.stringToLong("127.0.0.1:" + (22000 + index * 2)), Addressing.stringToLong("127.0.0.1:" + (22000 + index * 2 + 1)), true
+            );
+        }
+        if (relay) {
+            new Relay(Participant.connect(), Addressing.stringToLong("127.0.0.1:21998"), Addressing.stringToLong("127.0.0.1:21999"));
+            for (final Participant participant : participants) participant.joinRelay(Addressing.stringToLong("127.0.0.1:21998"));
+        } else {
+            participants[0].host();
+            for (int index = 1; index < count; index += 1) participants[index].join(participants[0].addressTCP());
+        }
+
+        final long[] sentStart = new long[count];
+        final long[] receivedStart = new long[count];
+        final long[] bytesStart = new long[count];
+        final long[] recoveredStart = new long[count];
+        Thread.sleep(2_000);
+        for (int index = 0; index < count; index += 1) {
+            sentStart[index] = participants[index].countSent();
+            receivedStart[index] = participants[index].countReceived();
+            bytesStart[index] = participants[index].bytesReceived();
+            recoveredStart[index] = participants[index].countRecovered();
+        }
+        final long timeStart = System.nanoTime();
+        Thread.sleep(seconds * 1_000L);
+        final double elapsed = (System.nanoTime() - timeStart) / 1e9;
+
+        long sent = 0;
+        long received = 0;
+        long bytes = 0;
+        long expected = 0;
+        long recovered = 0;
+        for (int index = 0; index < count; index += 1) sent += participants[index].countSent() - sentStart[index];
+        for (int index = 0; index < count; index += 1) {
+            final Participant participant = participants[index];
+            final long sentOthers = sent - (participant.countSent() - sentStart[index]);
+            final long receivedParticipant = participant.countReceived() - receivedStart[index];
+            received += receivedParticipant;
+            bytes += participant.bytesReceived() - bytesStart[index];
+            recovered += participant.countRecovered() - recoveredStart[index];
+            expected += sentOthers;
+            System.out.printf(
+                "participant=%d sent=%d received=%d expected=%d%n",
+                Addressing.longToPort(participant.addressUDP()), participant.countSent() - sentStart[index], receivedParticipant, sentOthers
+            );
+        }
+        System.out.printf(
+            "participants=%d mode=%s seconds=%.1f received=%.0fpkt/s throughput=%.2fMbps %s=%.3f%% injected=%.1f%% audio=%s recovered=%d%n",
+            count, relay ? "relay" : "mesh", elapsed, received / elapsed, bytes * 8 / elapsed / 1e6, relay ? "delivered" : "loss",
+            expected == 0 ? 0 : relay ? 100.0 * received / expected : 100.0 * Math.max(0, expected - received) / expected,
+            loss * 100, reliable ? "reliable" : "unreliable", recovered
+        );
+
+        final long[] merged = new long[Histogram.SIZE];
+        final long[] counts = new long[Histogram.SIZE];
+        for (final String name : HISTOGRAMS) {
+            Arrays.fill(merged, 0);
+            for (final Participant participant : participants) {
+                participant.histogram(name).copyInto(counts);
+                for (int index = 0; index < Histogram.SIZE; index += 1) merged[index] += counts[index];
+            }
+            final long total = Histogram.count(merged);
+            System.out.printf(
+                "%-16s count=%8d p50=%8.3fms p99=%8.3fms p999=%8.3fms max=%8.3fms%n", name, total,
+                Histogram.percentile(merged, total, 0.5) / 1e6, Histogram.percentile(merged, total, 0.99) / 1e6,
+                Histogram.percentile(merged, total, 0.999) / 1e6, Histogram.percentile(merged, total, 1.0) / 1e6
+            );
+        }
+        for (final Participant participant : participants) participant.close();
+        System.exit(0);
+    }
+}
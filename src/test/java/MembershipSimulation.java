@@ -0,0 +1,71 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class MembershipSimulation {
+    public static void main(final String[] arguments) throws Exception {
+        final int count = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 16;
+        final Membership[] memberships = new Membership[count];
+        final ConcurrentHashMap<Long, AtomicInteger> addressToAlive = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Long, AtomicInteger> addressToDead = new ConcurrentHashMap<>();
+        for (int index = 0; index < count; index += 1) {
+            final long address = Addressing.stringToLong("127.0.0.1:" + (23000 + index));
+            memberships[index] = new Membership(
+                address, address + 1_000,
+                (final long member, final long addressUDP) -> addressToAlive.computeIfAbsent(member, key -> new AtomicInteger()).incrementAndGet(),
+                (final long member, final long addressUDP) -> addressToDead.computeIfAbsent(member, key -> new AtomicInteger()).incrementAndGet()
+            );
+            memberships[index].start();
+        }
+        final long timeJoin = System.nanoTime();
+        for (int index = 1; index < count; index += 1) {
+            final Packet snapshot = memberships[index].snapshot(new Packet());
+            final Packet reply = memberships[0].snapshot(new Packet());
+            memberships[0].merge(snapshot, Packet.SIZE_HEADER, snapshot.length());
+            memberships[index].merge(reply, Packet.SIZE_HEADER, reply.length());
+        }
+        while (total(addressToAlive) < (long) count * (count - 1)) Thread.sleep(10);
+        System.out.printf("converged=%d members in %.2fs%n", count, (System.nanoTime() - timeJoin) / 1e9);
+
+        final long addressCrashed = Addressing.stringToLong("127.0.0.1:" + (23000 + count - 1));
+        final long timeCrash = System.nanoTime();
+        memberships[count - 1].stop();
+        while (count(addressToDead, addressCrashed) < count - 1) Thread.sleep(10);
+        System.out.printf("crash detected by all %d in %.2fs%n", count - 1, (System.nanoTime() - timeCrash) / 1e9);
+
+        final long addressLeaver = Addressing.stringToLong("127.0.0.1:" + (23000 + count - 2));
+        final long timeLeave = System.nanoTime();
+        memberships[count - 2].leave();
+        memberships[count - 2].stop();
+        while (count(addressToDead, addressLeaver) < count - 2) Thread.sleep(10);
+        System.out.printf("leave seen by all %d in %.2fs%n", count - 2, (System.nanoTime() - timeLeave) / 1e9);
+
+        final int aliveBefore = count(addressToAlive, addressLeaver);
+        final long timeRejoin = System.nanoTime();
+        memberships[count - 2].start();
+        final Packet snapshot = memberships[count - 2].snapshot(new Packet());
+        final Packet reply = memberships[0].snapshot(new Packet());
+        memberships[0].merge(snapshot, Packet.SIZE_HEADER, snapshot.length());
+        memberships[count - 2].merge(reply, Packet.SIZE_HEADER, reply.length());
+        while (count(addressToAlive, addressLeaver) - aliveBefore < count - 2) Thread.sleep(10);
+        System.out.printf("rejoin seen by all %d in %.2fs%n", count - 2, (System.nanoTime() - timeRejoin) / 1e9);
+
+        Thread.sleep(3_000);
+        int falsePositives = 0;
+        for (final java.util.Map.Entry<Long, AtomicInteger> entry : addressToDead.entrySet()) {
+            if (entry.getKey() != addressCrashed && entry.getKey() != addressLeaver) falsePositives += entry.getValue().get();
+        }
+        System.out.printf("alive=%d suspect=%d false-positives=%d%n", memberships[0].count(Membership.STATUS_ALIVE), memberships[0].count(Membership.STATUS_SUSPECT), falsePositives);
+        System.exit(0);
+    }
+
+    private static long total(final ConcurrentHashMap<Long, AtomicInteger> map) {
+        long total = 0;
+        for (final AtomicInteger value : map.values()) total += value.get();
+        return total;
+    }
+
+    private static int count(final ConcurrentHashMap<Long, AtomicInteger> map, final long address) {
+        final AtomicInteger value = map.get(address);
+        return value == null ? 0 : value.get();
+    }
+}
@@ -0,0 +1,151 @@
+import org.agrona.ExpandableDirectByteBuffer;
+
+import java.awt.image.BufferedImage;
+import java.util.function.LongSupplier;
+
+/*
+ * Hand-rolled System.nanoTime harness, not JMH. Each round returns a checksum of everything it computed and
+ * consume() folds it into a volatile sink that is printed at the end, so the JIT cannot drop the measured
+ * loops as dead code. Limits of the method:
+ * - every benchmark runs in the same JVM, so profile pollution and earlier benchmarks' garbage can skew
+ *   later ones; pass a name prefix as the second argument to run one benchmark per JVM when comparing changes,
+ * - warmup is a fixed number of rounds, not a check that compilation has settled; look at the best figure
+ *   next to the mean and discard runs where they differ widely,
+ * - the loops inside a round can still be unrolled or hoisted across operations, so the cheapest operations
+ *   report an amortized cost that is lower than one isolated call would take,
+ * - the two-thread ring benchmark includes thread start and join in every round.
+ * Numbers are for comparing revisions on one machine, not for absolute claims.
+ */
+class MicroBenchmarks {
+    private static final int ROUNDS_WARMUP = 5;
+    private static final int ROUNDS_MEASURED = 10;
+
+    private static volatile long sink = 0;
+    private static String filter = "";
+
+    static void consume(final long value) {
+        sink = sink * 31 + value;
+    }
+
+    static void measure(final String name, final int operations, final LongSupplier round) {
+        if (!name.startsWith(filter)) return;
+        for (int index = 0; index < ROUNDS_WARMUP; index += 1) consume(round.getAsLong());
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int index = 0; index < ROUNDS_MEASURED; index += 1) {
+            final long start = System.nanoTime();
+            final long checksum = round.getAsLong();
+            final long nanos = System.nanoTime() - start;
+            consume(checksum);
+            best = Math.min(best, nanos);
+            total += nanos;
+        }
+        System.out.printf(
+            "%-32s %10.2f ns/op (best %10.2f ns/op)%n", name, (double) total / ROUNDS_MEASURED / operations, (double) best / operations
+        );
+    }
+
+    public static void main(final String[] arguments) throws Exception {
+        final int operations = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 1_000_000;
+        filter = arguments.length > 1 ? arguments[1] : "";
+
+        final RingBuffer<Packet> ring = new RingBuffer<>(Packet::factory, 1024);
+        final int ticket = ring.subscribe();
+        measure("RingBuffer claim/commit/acquire", operations, () -> {
+            long checksum = 0;
+            for (int index = 0; index < operations; index += 1) {
+                ring.claim();
+                ring.commit();
+                final Packet packet = ring.acquire(ticket);
+                checksum += packet == null ? 0 : 1;
+                ring.release(ticket);
+            }
+            return checksum;
+        });
+
+        final RingBuffer<Packet> shared = new RingBuffer<>(Packet::factory, 1024);
+        final int ticketShared = shared.subscribe();
+        measure("RingBuffer two threads", operations, () -> {
+            final Thread producer = new Thread(() -> {
+                for (int index = 0; index < operations; index += 1) {
+                    shared.claim();
+                    shared.commit();
+                }
+            });
+            producer.start();
+            final WaitStrategy waitStrategy = new WaitStrategy.Yielding();
+            long consumed = 0;
+            int attempts = 0;
+            while (consumed < operations) {
+                final int count = shared.acquire(ticketShared, 64);
+                if (count == 0) {
+                    waitStrategy.idle(attempts++);
+                    continue;
+                }
+                attempts = 0;
+                shared.release(ticketShared, count);
+                consumed += count;
+            }
+            try { producer.join(); } catch (InterruptedException exception) { Thread.currentThread().interrupt(); }
+            return consumed;
+        });
+
+        final Packet packet = new Packet();
+        packet.allocate(Packet.SIZE_HEADER + 320);
+        measure("Packet metadata write/read", operations, () -> {
+            long checksum = 0;
+            for (int index = 0; index < operations; index += 1) {
+                packet.setType(Packet.TYPE_AUDIO).setLength(320).setAddressUDP(index).setLayer(index & 3).setTime(index).setSequence(index);
+                checksum += packet.type() + packet.length() + packet.addressUDP() + packet.layer() + packet.time() + packet.sequence();
+            }
+            return checksum;
+        });
+
+        final String[] strings = { "127.0.0.1:20001", "10.1.2.3:443", "192.168.100.200:30000" };
+        measure("Addressing stringToLong", operations / 10, () -> {
+            long checksum = 0;
+            for (int index = 0; index < operations / 10; index += 1) checksum += Addressing.stringToLong(strings[index % strings.length]);
+            return checksum;
+        });
+        final long address = Addressing.stringToLong(strings[2]);
+        measure("Addressing longToString", operations / 10, () -> {
+            long checksum = 0;
+            for (int index = 0; index < operations / 10; index += 1) checksum += Addressing.longToString(address + index).length();
+            return checksum;
+        });
+
+        final SyntheticVideo video = new SyntheticVideo(320, 240, 2);
+        final BufferedImage[] frames = new BufferedImage[60];
+        for (int index = 0; index < frames.length; index += 1) {
+            final BufferedImage source = video.next();
+            frames[index] = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+            frames[index].setData(source.getData());
+        }
+        final TileCodec codec = new TileCodec();
+        final VideoCodec.Encoder encoder = codec.encoder(320, 240);
+        final ExpandableDirectByteBuffer encoded = new ExpandableDirectByteBuffer(1 << 18);
+        final int countFrames = 300;
+        measure("TileCodec encode 320x240", countFrames, () -> {
+            long checksum = 0;
+            for (int index = 0; index < countFrames; index += 1) checksum += encoder.encode(frames[index % frames.length], encoded);
+            return checksum;
+        });
+        final ExpandableDirectByteBuffer[] stream = new ExpandableDirectByteBuffer[countFrames];
+        final int[] lengths = new int[countFrames];
+        final VideoCodec.Encoder encoderStream = codec.encoder(320, 240);
+        for (int index = 0; index < countFrames; index += 1) {
+            stream[index] = new ExpandableDirectByteBuffer(1 << 16);
+            lengths[index] = encoderStream.encode(frames[index % frames.length], stream[index]);
+        }
+        measure("TileCodec decode 320x240", countFrames, () -> {
+            final VideoCodec.Decoder decoder = codec.decoder();
+            long checksum = 0;
+            for (int index = 0; index < countFrames; index += 1) {
+                final BufferedImage image = decoder.decode(stream[index], 0, lengths[index]);
+                checksum += image == null ? 0 : image.getRGB(index % 320, index % 240);
+            }
+            return checksum;
+        });
+        System.out.println("checksum=" + sink);
+    }
+}
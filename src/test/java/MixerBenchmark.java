@@ -0,0 +1,40 @@
+import javax.sound.sampled.AudioFormat;
+import java.nio.ByteOrder;
+
+class MixerBenchmark {
+    public static void main(final String[] arguments) {
+        final AudioFormat audioFormat = new AudioFormat(8000.0f, 16, 1, true, true);
+        final int samplesPerFrame = 160;
+        final long nanosPerFrame = 20_000_000L;
+        final int frames = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 5_000;
+        final Packet packet = new Packet();
+        final short[] output = new short[samplesPerFrame];
+
+        for (final int senders : new int[] { 1, 4, 10, 30, 100 }) {
+            final SummingMixer mixer = new SummingMixer(audioFormat);
+            final NullSink sink = new NullSink(audioFormat, false);
+            long nanosMix = 0;
+
+            for (int frame = 0; frame < frames; frame += 1) {
+                final long time = frame * nanosPerFrame;
+                for (int sender = 0; sender < senders; sender += 1) {
+                    packet.allocate(Packet.SIZE_HEADER + samplesPerFrame * 2);
+                    for (int index = 0; index < samplesPerFrame; index += 1) {
+                        final double phase = 2 * Math.PI * (200 + sender * 50) * (frame * samplesPerFrame + index) / 8000.0;
+                        packet.putShort(Packet.SIZE_HEADER + index * 2, (short) (6000 * Math.sin(phase)), ByteOrder.BIG_ENDIAN);
+                    }
+                    mixer.write(sender + 1, packet, Packet.SIZE_HEADER, samplesPerFrame * 2, time, time);
+                }
+                final long start = System.nanoTime();
+                mixer.mix(output, 0, samplesPerFrame);
+                sink.write(output, 0, samplesPerFrame);
+                if (frame >= frames / 10) nanosMix += System.nanoTime() - start;
+            }
+            System.out.printf(
+                "senders=%3d mix=%7.2fus/frame (%5.2f%% of a %dms frame on one core) limited=%d checksum=%d%n",
+                senders, nanosMix / 1e3 / (frames - frames / 10), 100.0 * nanosMix / (frames - frames / 10) / nanosPerFrame,
+                nanosPerFrame / 1_000_000, mixer.countLimited(), sink.checksum()
+            );
+        }
+    }
+}
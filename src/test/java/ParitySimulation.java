@@ -0,0 +1,58 @@
+class ParitySimulation {
+    public static void main(final String[] arguments) {
+        final int packets = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 50_000;
+        final long nanosPerPacket = 20_000_000L;
+        final Packet packet = new Packet();
+
+        for (final double probabilityLoss : new double[] { 0.0, 0.01, 0.03, 0.05, 0.1, 0.2 }) {
+            final SyntheticNetwork network = new SyntheticNetwork(1, probabilityLoss, 0, 10_000_000L, 0);
+            final ParityEncoder encoder = new ParityEncoder();
+            final ParityDecoder decoder = new ParityDecoder();
+            final boolean[] delivered = new boolean[packets];
+            final long[] counts = new long[4];
+            final long[] nanosRecovery = new long[1];
+            final SyntheticNetwork.Receiver receiver = (timeArrival, received) -> {
+                if ((received.flags() & Packet.FLAG_PARITY) == 0) {
+                    decoder.add(received, 0, received.size(), received.sequence());
+                    delivered[received.sequence()] = true;
+                    return;
+                }
+                final Packet recovered = decoder.recover(received, 0, received.size());
+                if (recovered == null) return;
+                final int sequence = recovered.sequence();
+                boolean intact = recovered.length() == 160 + sequence % 3 * 16;
+                for (int index = 0; intact && index < recovered.length(); index += 1) intact = recovered.getByte(Packet.SIZE_HEADER + index) == (byte) (sequence * 31 + index);
+                if (!intact) counts[3] += 1;
+                delivered[sequence] = true;
+                counts[2] += 1;
+                nanosRecovery[0] += timeArrival - recovered.time();
+            };
+
+            for (int sequence = 0; sequence < packets; sequence += 1) {
+                final long time = sequence * nanosPerPacket;
+                final int length = 160 + sequence % 3 * 16;
+                packet.allocate(Packet.SIZE_HEADER + length);
+                for (int index = 0; index < length; index += 1) packet.putByte(Packet.SIZE_HEADER + index, (byte) (sequence * 31 + index));
+                packet.setType(Packet.TYPE_AUDIO).setFlags(0).setLength(length).setAddressUDP(1).setTime(time).setSequence(sequence);
+                network.send(time, packet);
+                counts[0] += packet.size();
+                final Packet parity = encoder.add(packet);
+                if (parity != null) {
+                    network.send(time + 1, parity);
+                    counts[1] += parity.size();
+                }
+                network.receive(time, receiver);
+                if (sequence % 5 == 4) encoder.reportLoss((float) probabilityLoss);
+            }
+            network.receive(Long.MAX_VALUE, receiver);
+
+            int lost = 0;
+            for (final boolean received : delivered) if (!received) lost += 1;
+            System.out.printf(
+                "loss=%4.1f%% group=%d residual=%5.2f%% recovered=%5d corrupt=%d overhead=%5.1f%% recovery=%5.1fms%n",
+                probabilityLoss * 100, encoder.sizeGroup(), 100.0 * lost / packets, counts[2], counts[3], 100.0 * counts[1] / counts[0],
+                counts[2] == 0 ? 0 : nanosRecovery[0] / 1e6 / counts[2]
+            );
+        }
+    }
+}
@@ -0,0 +1,160 @@
+import io.aeron.Aeron;
+import io.aeron.ExclusivePublication;
+import io.aeron.FragmentAssembler;
+import io.aeron.Subscription;
+import io.aeron.driver.MediaDriver;
+import io.aeron.driver.ThreadingMode;
+import io.aeron.logbuffer.FragmentHandler;
+import org.agrona.collections.LongHashSet;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+class RelayBenchmark {
+    private static final int PARTICIPANTS_PER_CALL = 3;
+    private static final int PORT_FIRST = 24000;
+    private static final int SIZE_AUDIO = 160;
+    private static final int SIZE_VIDEO = 4 << 10;
+    private static final long NANOS_AUDIO = 20_000_000L;
+    private static final long NANOS_VIDEO = 66_666_666L;
+    private static final int SIZE_TERM_CLIENT = 1 << 18;
+
+    public static void main(final String[] arguments) throws Exception {
+        final int[] counts = arguments.length > 0 ? Arrays.stream(arguments[0].split(",")).mapToInt(Integer::parseInt).toArray() : new int[] { 10, 50, 100 };
+        final int seconds = arguments.length > 1 ? Integer.parseInt(arguments[1]) : 5;
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final long addressTCPRelay = Addressing.stringToLong("127.0.0.1:23998");
+        final long addressUDPRelay = Addressing.stringToLong("127.0.0.1:23999");
+
+        final LongHashSet threadsBefore = new LongHashSet();
+        for (final long thread : threads.getAllThreadIds()) threadsBefore.add(thread);
+        final MediaDriver driverServer = MediaDriver.launchEmbedded(Relay.driverContext());
+        final Aeron aeronServer = Aeron.connect(new Aeron.Context().aeronDirectoryName(driverServer.aeronDirectoryName()));
+        final Relay relay = new Relay(aeronServer, addressTCPRelay, addressUDPRelay);
+        Thread.sleep(100);
+        final LongHashSet threadsServer = new LongHashSet();
+        for (final long thread : threads.getAllThreadIds()) if (!threadsBefore.contains(thread)) threadsServer.add(thread);
+
+        final MediaDriver driverClients = MediaDriver.launchEmbedded(
+            new MediaDriver.Context().threadingMode(ThreadingMode.SHARED).termBufferSparseFile(true).dirDeleteOnStart(true).dirDeleteOnShutdown(true)
+        );
+        final Aeron aeronClients = Aeron.connect(new Aeron.Context().aeronDirectoryName(driverClients.aeronDirectoryName()));
+        final String endpointRelay = "endpoint=" + Addressing.longToString(addressUDPRelay);
+        final Client[] clients = new Client[counts[counts.length - 1] * PARTICIPANTS_PER_CALL];
+        final Packet audio = new Packet();
+        audio.wrap(new byte[Packet.SIZE_HEADER + SIZE_AUDIO]);
+        final Packet video = new Packet();
+        video.wrap(new byte[Packet.SIZE_HEADER + SIZE_VIDEO]);
+        final long[] received = new long[1];
+        final FragmentHandler handler = (buffer, offset, length, header) -> received[0] += 1;
+        final FragmentAssembler[] fragmentAssemblers = new FragmentAssembler[clients.length];
+
+        int calls = 0;
+        System.out.printf("%5s %8s %9s %9s %9s %9s %10s %11s %11s%n", "calls", "clients", "sent/s", "recv/s", "delivery", "us/fwd", "cpu%/call", "logKB/call", "heapKB/call");
+        for (final int count : counts) {
+            for (; calls < count; calls += 1) {
+                for (int member = 0; member < PARTICIPANTS_PER_CALL; member += 1) {
+                    final int index = calls * PARTICIPANTS_PER_CALL + member;
+                    final long addressUDP = Addressing.stringToLong("127.0.0.1:" + (PORT_FIRST + index));
+                    relay.subscribe(calls, 0, addressUDP, (byte) (Packet.TYPE_AUDIO | Packet.TYPE_VIDEO), 1, new LongHashSet());
+                    clients[index] = new Client(aeronClients, endpointRelay, addressUDP);
+                    fragmentAssemblers[index] = new FragmentAssembler(handler);
+                }
+            }
+            final int countClients = calls * PARTICIPANTS_PER_CALL;
+            final long nanosWarmup = System.nanoTime() + 2_000_000_000L;
+            final long[] totals = new long[2];
+            long cpuStart = 0;
+            long forwardedStart = 0;
+            long timeStart = 0;
+            long timeAudio = System.nanoTime();
+            long timeVideo = timeAudio;
+            int sequence = 0;
+            while (true) {
+                final long now = System.nanoTime();
+                if (timeStart == 0 && now > nanosWarmup) {
+                    timeStart = now;
+                    cpuStart = cpu(threads, threadsServer);
+                    forwardedStart = relay.counter(Relay.COUNTER_FORWARDED);
+                    totals[0] = 0;
+                    received[0] = 0;
+                }
+                if (timeStart != 0 && now - timeStart > seconds * 1_000_000_000L) break;
+                if (now >= timeAudio) {
+                    timeAudio += NANOS_AUDIO;
+                    sequence += 1;
+                    for (int index = 0; index < countClients; index += 1) {
+                        audio.setType(Packet.TYPE_AUDIO).setLength(SIZE_AUDIO).setAddressUDP(clients[index].addressUDP).setTime(now).setSequence(sequence);
+                        if (clients[index].publicationAudio.offer(audio, 0, audio.size()) > 0) totals[0] += 1;
+                    }
+                }
+                if (now >= timeVideo) {
+                    timeVideo += NANOS_VIDEO;
+                    for (int index = 0; index < countClients; index += 1) {
+                        video.setType(Packet.TYPE_VIDEO).setLayer(0).setLength(SIZE_VIDEO).setAddressUDP(clients[index].addressUDP).setTime(now).setSequence(sequence);
+                        if (clients[index].publicationVideo.offer(video, 0, video.size()) > 0) totals[0] += 1;
+                    }
+                }
+                int fragments = 0;
+                for (int index = 0; index < countClients; index += 1) {
+                    fragments += clients[index].subscriptionAudio.poll(handler, 16);
+                    fragments += clients[index].subscriptionVideo.poll(fragmentAssemblers[index], 16);
+                }
+                if (fragments == 0) Thread.yield();
+            }
+            final double elapsed = (System.nanoTime() - timeStart) / 1e9;
+            final long nanosCPU = cpu(threads, threadsServer) - cpuStart;
+            final long forwarded = relay.counter(Relay.COUNTER_FORWARDED) - forwardedStart;
+            final double cpu = nanosCPU / 1e9 / elapsed;
+            System.gc();
+            final Runtime runtime = Runtime.getRuntime();
+            System.out.printf(
+                "%5d %8d %9.0f %9.0f %8.1f%% %9.1f %10.3f %11d %11d%n",
+                calls, countClients, totals[0] / elapsed, received[0] / elapsed,
+                100.0 * received[0] / Math.max(1, totals[0] * (PARTICIPANTS_PER_CALL - 1)), nanosCPU / 1e3 / Math.max(1, forwarded), 100.0 * cpu / calls,
+                size(new File(driverServer.aeronDirectoryName())) / 1024 / calls, (runtime.totalMemory() - runtime.freeMemory()) / 1024 / calls
+            );
+        }
+        System.out.println("relay " + relay.counter(Relay.COUNTER_FORWARDED) + " forwarded " + relay.counter(Relay.COUNTER_DROPPED) + " dropped");
+        aeronClients.close();
+        driverClients.close();
+        relay.stop();
+        Thread.sleep(100);
+        aeronServer.close();
+        driverServer.close();
+        System.exit(0);
+    }
+
+    private static long cpu(final ThreadMXBean threads, final LongHashSet ids) {
+        long nanos = 0;
+        for (final long id : ids) nanos += Math.max(0, threads.getThreadCpuTime(id));
+        return nanos;
+    }
+
+    private static long size(final File file) {
+        if (file.isFile()) return file.length();
+        long size = 0;
+        final File[] children = file.listFiles();
+        if (children != null) for (final File child : children) size += size(child);
+        return size;
+    }
+
+    private static class Client {
+        final long addressUDP;
+        final ExclusivePublication publicationAudio;
+        final ExclusivePublication publicationVideo;
+        final Subscription subscriptionAudio;
+        final Subscription subscriptionVideo;
+
+        Client(final Aeron aeron, final String endpointRelay, final long addressUDP) {
+            this.addressUDP = addressUDP;
+            publicationAudio = aeron.addExclusivePublication(UDP.channel(endpointRelay, UDP.SIZE_TERM_AUDIO), UDP.STREAM_AUDIO);
+            publicationVideo = aeron.addExclusivePublication(UDP.channel(endpointRelay, SIZE_TERM_CLIENT), UDP.streamVideo(0));
+            final String endpoint = "endpoint=" + Addressing.longToString(addressUDP);
+            subscriptionAudio = aeron.addSubscription(UDP.channel(endpoint, UDP.SIZE_TERM_AUDIO), UDP.STREAM_AUDIO);
+            subscriptionVideo = aeron.addSubscription(UDP.channel(endpoint, SIZE_TERM_CLIENT), UDP.streamVideo(0));
+        }
+    }
+}
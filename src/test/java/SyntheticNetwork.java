@@ -0,0 +1,78 @@
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+class SyntheticNetwork {
+    private final SplittableRandom random;
+    private final double probabilityLoss;
+    private final double probabilityReorder;
+    private final long nanosDelay;
+    private long nanosJitter;
+    private long bitsPerSecond = 0;
+    private long nanosQueueMaximum = 0;
+    private long timeFree = 0;
+    private final PriorityQueue<Delivery> deliveries = new PriorityQueue<>((a, b) -> Long.compare(a.time, b.time));
+    private final ArrayDeque<Delivery> free = new ArrayDeque<>();
+
+    private long countSent = 0;
+    private long countLost = 0;
+    private long countReordered = 0;
+
+    public SyntheticNetwork(final long seed, final double probabilityLoss, final double probabilityReorder, final long nanosDelay, final long nanosJitter) {
+        random = new SplittableRandom(seed);
+        this.probabilityLoss = probabilityLoss;
+        this.probabilityReorder = probabilityReorder;
+        this.nanosDelay = nanosDelay;
+        this.nanosJitter = nanosJitter;
+    }
+
+    public void send(final long timeNow, final Packet packet) {
+        countSent += 1;
+        if (random.nextDouble() < probabilityLoss) { countLost += 1; return; }
+        long timeDeparture = timeNow;
+        if (bitsPerSecond > 0) {
+            final long timeStart = Math.max(timeNow, timeFree);
+            if (timeStart - timeNow > nanosQueueMaximum) { countLost += 1; return; }
+            timeFree = timeStart + packet.size() * 8L * 1_000_000_000L / bitsPerSecond;
+            timeDeparture = timeFree;
+        }
+        long delay = nanosDelay + (nanosJitter > 0 ? random.nextLong(nanosJitter) : 0);
+        if (random.nextDouble() < probabilityReorder) {
+            countReordered += 1;
+            delay += nanosJitter + nanosDelay / 2;
+        }
+        final Delivery delivery = free.isEmpty() ? new Delivery() : free.poll();
+        delivery.time = timeDeparture + delay;
+        delivery.packet.allocate(packet.size()).putBytes(0, packet, 0, packet.size());
+        deliveries.add(delivery);
+    }
+
+    public int receive(final long timeNow, final Receiver receiver) {
+        int count = 0;
+        while (!deliveries.isEmpty() && deliveries.peek().time <= timeNow) {
+            final Delivery delivery = deliveries.poll();
+            receiver.receive(delivery.time, delivery.packet);
+            free.add(delivery);
+            count += 1;
+        }
+        return count;
+    }
+
+    public void setJitter(final long nanosJitter) { this.nanosJitter = nanosJitter; }
+
+    public void setCapacity(final long bitsPerSecond, final long nanosQueueMaximum) {
+        this.bitsPerSecond = bitsPerSecond;
+        this.nanosQueueMaximum = nanosQueueMaximum;
+    }
+
+    public long countSent() { return countSent; }
+    public long countLost() { return countLost; }
+    public long countReordered() { return countReordered; }
+
+    public interface Receiver { void receive(final long timeArrival, final Packet packet); }
+
+    private static class Delivery {
+        final Packet packet = new Packet();
+        long time;
+    }
+}
@@ -0,0 +1,45 @@
+import org.agrona.ExpandableDirectByteBuffer;
+
+import java.awt.image.BufferedImage;
+
+class VideoCodecBenchmark {
+    public static void main(final String[] arguments) {
+        final int frames = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 300;
+        final int width = 320;
+        final int height = 240;
+        final VideoCodec[] codecs = { new PNGCodec(), new TileCodec(16, 60, 12, 0), new TileCodec(16, 60, 12, 2) };
+        final String[] names = { "png", "tile shift=0", "tile shift=2" };
+
+        for (int index = 0; index < codecs.length; index += 1) {
+            final SyntheticVideo video = new SyntheticVideo(width, height, 2);
+            final VideoCodec.Encoder encoder = codecs[index].encoder(width, height);
+            final VideoCodec.Decoder decoder = codecs[index].decoder();
+            final ExpandableDirectByteBuffer buffer = new ExpandableDirectByteBuffer(1 << 16);
+            long nanosEncode = 0;
+            long nanosDecode = 0;
+            long bytes = 0;
+            int failures = 0;
+
+            for (int frame = 0; frame < frames; frame += 1) {
+                final BufferedImage image = video.next();
+                final long start = System.nanoTime();
+                final int length = encoder.encode(image, buffer);
+                final long middle = System.nanoTime();
+                if (decoder.decode(buffer, 0, length) == null) failures += 1;
+                final long end = System.nanoTime();
+                if (frame >= frames / 10) {
+                    nanosEncode += middle - start;
+                    nanosDecode += end - middle;
+                    bytes += length;
+                }
+            }
+
+            final int measured = frames - frames / 10;
+            System.out.printf(
+                "%-14s encode=%7.3fms decode=%7.3fms bytes/frame=%8d ratio=%6.1f failures=%d%n",
+                names[index], nanosEncode / 1e6 / measured, nanosDecode / 1e6 / measured,
+                bytes / measured, (double) width * height * 3 * measured / bytes, failures
+            );
+        }
+    }
+}